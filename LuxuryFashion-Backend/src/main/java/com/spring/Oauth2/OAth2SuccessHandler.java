@@ -2,7 +2,6 @@ package com.spring.Oauth2;
 
 import com.spring.jwt.JwtUtil;
 import com.spring.model.User;
-import com.spring.model.UserShow;
 import com.spring.repo.UserRepository;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -51,15 +50,13 @@ public class OAth2SuccessHandler implements AuthenticationSuccessHandler {
 
             // Store more info if available
             newUser.setGender("UNKNOWN");
+            newUser.setRole("ROLE_USER");
             newUser.setName(oauth2User.getAttribute("name"));
             user = userRepository.save(newUser);
         }
 
-        // DTO wrapper
-        UserShow userShow = new UserShow(user);
-
         // Generate JWT
-        String token = jwtUtil.generateToken(userShow.getUsername());
+        String token = jwtUtil.generateToken(user);
 
         // Secure cookie
         ResponseCookie cookie = ResponseCookie.from("authToken", token)
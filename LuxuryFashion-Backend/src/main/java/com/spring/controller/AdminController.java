@@ -1,28 +1,34 @@
 package com.spring.controller;
 
 
+import com.spring.dto.ImportReport;
 import com.spring.dto.ProductDto;
 import com.spring.model.Gallery;
 import com.spring.model.Product;
 import com.spring.repo.ProductRepository;
 import com.spring.service.AdminService;
+import com.spring.service.CatalogCache;
+import com.spring.service.GalleryCache;
+import com.spring.service.PasswordHashingService;
+import com.spring.service.ProductImportService;
 import com.spring.service.ProductService;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
 import java.util.List;
 import java.util.Map;
@@ -32,11 +38,22 @@ import java.util.Map;
 public class AdminController {
     private final AdminService adminService;
     private final ProductService productService;
+    private final CatalogCache catalogCache;
+    private final GalleryCache galleryCache;
+    private final ProductImportService productImportService;
+    private final PasswordHashingService passwordHashingService;
 
 
-    public AdminController(AdminService adminService, ProductService productService) {
+    public AdminController(AdminService adminService, ProductService productService,
+                           CatalogCache catalogCache, GalleryCache galleryCache,
+                           ProductImportService productImportService,
+                           PasswordHashingService passwordHashingService) {
         this.adminService = adminService;
         this.productService = productService;
+        this.catalogCache = catalogCache;
+        this.galleryCache = galleryCache;
+        this.productImportService = productImportService;
+        this.passwordHashingService = passwordHashingService;
     }
 
 
@@ -46,6 +63,16 @@ public class AdminController {
         return ResponseEntity.ok(products);
     }
 
+    // Same rows as fetch-products, one JSON object per line, written while they are read
+    @GetMapping("/export-products")
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        StreamingResponseBody body = adminService::exportProducts;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products.ndjson\"")
+                .body(body);
+    }
+
 
     @PostMapping(path = "/add-product", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> addProduct(@ModelAttribute ProductDto productDto) {
@@ -59,10 +86,26 @@ public class AdminController {
         }
     }
 
+    // Body is CSV with a header row (text/csv) or one product object per line (application/x-ndjson)
+    @PostMapping(path = "/import-products", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importProducts(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                            InputStream body) {
+        boolean csv = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType("text/csv"));
+        try {
+            ImportReport report = productImportService.importProducts(body, csv);
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "Failed to read import body", "message", String.valueOf(e.getMessage())));
+        }
+    }
+
     @PostMapping("add-gallery-images")
     public ResponseEntity<?> addGalleryImages(@RequestBody Gallery gallery ) {
-     adminService.addGalleryImages(gallery);
-        return ResponseEntity.ok(gallery);
+        // Inline data: images come back with the short URL they were stored under
+        return adminService.addGalleryImages(gallery);
     }
 
     @GetMapping("/fetch-gallery-images")
@@ -81,6 +124,17 @@ public class AdminController {
         return adminService.updateGalleryStatus(galleries);
     }
 
+    // Body is {"<gallery id>": true|false, ...}; only the ids that actually flipped come back
+    @PutMapping("/gallery-status")
+    public ResponseEntity<?> updateGalleryStatuses(@RequestBody Map<Long, Boolean> statuses) {
+        try {
+            return ResponseEntity.ok(Map.of("changed", adminService.updateGalleryStatuses(statuses)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to update gallery status", "message", String.valueOf(e.getMessage())));
+        }
+    }
+
     @PutMapping("/update-product/{id}")
     public ResponseEntity<Product> updateProduct(
             @PathVariable("id") Long id,
@@ -102,6 +156,16 @@ public class AdminController {
         }
     }
 
+    @GetMapping("/cache-stats")
+    public ResponseEntity<?> cacheStats() {
+        return ResponseEntity.ok(Map.of("catalog", catalogCache.stats(), "gallery", galleryCache.stats()));
+    }
+
+    @GetMapping("/password-hash-stats")
+    public ResponseEntity<?> passwordHashStats() {
+        return ResponseEntity.ok(passwordHashingService.stats());
+    }
+
     @DeleteMapping("/delete-gallery-image/{id}")
     public ResponseEntity<String> deleteGalleryImage(@PathVariable Long id) {
         try {
@@ -3,20 +3,21 @@ package com.spring.controller;
 import com.spring.jwt.JwtUtil;
 import com.spring.model.LoginRequest;
 import com.spring.model.User;
-import com.spring.model.UserShow;
 import com.spring.repo.UserRepository;
+import com.spring.service.PasswordHashingService;
+import io.jsonwebtoken.JwtException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/auth")
@@ -29,7 +30,7 @@ public class AuthController {
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
 
     @Autowired
     private JwtUtil jwtUtil;
@@ -41,15 +42,29 @@ public class AuthController {
         String password = request.getPassword();
 
         User user = userRepository.findByEmail(email);
-        if (user == null || !passwordEncoder.matches(password, user.getPassword())) {
+        boolean valid;
+        try {
+            valid = user != null && passwordHashingService.matches(password, user.getPassword());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Collections.singletonMap("error", "Too many sign-in attempts, please try again shortly"));
+        }
+        if (!valid) {
             System.out.println("Wrong password");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Collections.singletonMap("error", "Invalid credentials"));
         }
 
+        // Bring hashes made with an older, cheaper cost up to the configured one while we have the password
+        String upgraded = passwordHashingService.rehashIfNeeded(password, user.getPassword());
+        if (upgraded != null) {
+            user.setPassword(upgraded);
+            userRepository.save(user);
+        }
+
         // Generate JWT securely
-        UserShow userShow = new UserShow(user);
-        String token = jwtUtil.generateToken(userShow.getUsername());
+        String token = jwtUtil.generateToken(user);
 
         // Secure cookie
         ResponseCookie cookie = ResponseCookie.from("authToken", token)
@@ -80,17 +95,12 @@ public class AuthController {
         String token = authHeader.substring(7); // Remove "Bearer " prefix
 
         try {
-            if (!jwtUtil.validateToken(token)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(Collections.singletonMap("error", "Invalid or expired token"));
-            }
-
-            String username = jwtUtil.extractUsername(token);
+            String username = jwtUtil.verify(token).getSubject();
             return ResponseEntity.ok(Collections.singletonMap("message", "Token valid for user: " + username));
 
-        } catch (Exception e) {
+        } catch (JwtException | IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(Collections.singletonMap("error", "Invalid token"));
+                    .body(Collections.singletonMap("error", "Invalid or expired token"));
         }
     }
 
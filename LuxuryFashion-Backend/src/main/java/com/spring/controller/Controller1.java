@@ -6,14 +6,18 @@ import com.spring.dto.UserRegistrationDto;
 import com.spring.notification.EmailTemplate;
 import com.spring.notification.NotificationManager;
 import com.spring.repo.UserRepository;
+import com.spring.service.PasswordHashingService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/users")
@@ -21,7 +25,7 @@ public class Controller1 {
     @Autowired
     private UserRepository userRepository;
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
     @Autowired
     private JwtUtil jwtUtil;
     @Autowired
@@ -34,16 +38,23 @@ public class Controller1 {
         user.setName(dto.getFirstName() + " " + dto.getLastName()); // combine names
         user.setEmail(dto.getEmail());
         user.setPhoneNumber(dto.getPhone());
-        user.setPassword(passwordEncoder.encode(dto.getPassword()));
 
         // set default values for required fields
         user.setGender("Not Specified");
         user.setDob(new Date()); // or null if not mandatory
         user.setActive(true);
         user.setRole("ROLE_USER");
-        if(userRepository.existsByEmail(user.getEmail()) != null) {
+        if(Boolean.TRUE.equals(userRepository.existsByEmail(user.getEmail()))) {
         throw new Exception("User already Exsist");
         }
+        // Hash only once the account is known to be new, it is the expensive part
+        try {
+            user.setPassword(passwordHashingService.encode(dto.getPassword()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("error", "Too many registrations, please try again shortly"));
+        }
         userRepository.save(user);
         notificationManager.sendNotification("email",user.getEmail(),null,"Account Created ", EmailTemplate.getWelcomeTemplate(user.getName(),user.getEmail(),null));
         return ResponseEntity.ok("User registered successfully");
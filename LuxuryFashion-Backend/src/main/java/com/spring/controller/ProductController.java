@@ -1,16 +1,31 @@
 package com.spring.controller;
 
+import com.spring.dto.ProductCardDto;
 import com.spring.dto.ProductDto;
+import com.spring.dto.ProductPageDto;
 import com.spring.model.Gallery;
 import com.spring.model.Product;
+import com.spring.service.CatalogCache;
+import com.spring.service.CatalogSnapshot;
+import com.spring.service.GalleryCache;
+import com.spring.service.ProductFacetIndex;
 import com.spring.service.ProductService;
+import com.spring.service.ProductSuggestIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.Duration;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/luxuryfashion")
@@ -20,11 +35,49 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ProductFacetIndex productFacetIndex;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private GalleryCache galleryCache;
+
+    @Autowired
+    private CatalogSnapshot catalogSnapshot;
+
+    @Autowired
+    private ProductSuggestIndex productSuggestIndex;
+
+    @Value("${catalog.http.max-age-seconds:0}")
+    private long httpMaxAgeSeconds;
+
     @GetMapping("/fetch-products-shop")
-    public ResponseEntity<List<Product>> fetchAllProducts() {
+    public ResponseEntity<?> fetchAllProducts(WebRequest request,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean gzip = catalogSnapshot.isEnabled() && acceptsGzip(acceptEncoding);
+        // Versions are read before the content, so an ETag never claims newer data than the body holds
+        String etag = gzip ? CatalogSnapshot.gzipEtag(catalogCache.etag()) : catalogCache.etag();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(publicCacheControl()).build();
+        }
         try {
+            if (catalogSnapshot.isEnabled()) {
+                // Pre-serialized bytes, written as is
+                CatalogSnapshot.Encoded snapshot = catalogSnapshot.get();
+                ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                        .eTag(gzip ? snapshot.gzipEtag() : snapshot.etag())
+                        .cacheControl(publicCacheControl())
+                        .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                        .contentType(MediaType.APPLICATION_JSON);
+                if (gzip) {
+                    return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.gzip());
+                }
+                return response.body(snapshot.identity());
+            }
             List<Product> products = productService.fetchAllProducts();
-            return ResponseEntity.ok(products);
+            return ResponseEntity.ok().eTag(etag).cacheControl(publicCacheControl()).body(products);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Collections.emptyList());
@@ -32,9 +85,17 @@ public class ProductController {
     }
 
     @GetMapping("/fetch-gallery")
-    public ResponseEntity<?> fetchAllGallery() {
+    public ResponseEntity<?> fetchAllGallery(WebRequest request) {
+        String etag = galleryCache.etag();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(publicCacheControl()).build();
+        }
     try{
-        return productService.getGallery();
+        ResponseEntity<?> gallery = productService.getGallery();
+        if (!gallery.getStatusCode().is2xxSuccessful()) {
+            return gallery;
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(publicCacheControl()).body(gallery.getBody());
     }
     catch (Exception e) {
         return ResponseEntity
@@ -43,11 +104,83 @@ public class ProductController {
     }
     }
 
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                // gzip;q=0 explicitly refuses it
+                return parts.length < 2 || !parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    // Browsers and the CDN may keep a copy but revalidate it, which is a cheap 304 until the next admin write
+    private CacheControl publicCacheControl() {
+        if (httpMaxAgeSeconds <= 0) {
+            return CacheControl.noCache().cachePublic();
+        }
+        return CacheControl.maxAge(Duration.ofSeconds(httpMaxAgeSeconds)).cachePublic().mustRevalidate();
+    }
+
     @GetMapping("/products")
     public List<Product> getProductsByCategory(){
         return productService.fetchAllProducts();
     }
 
+    @GetMapping("/new-arrivals")
+    public List<ProductCardDto> fetchNewArrivals(@RequestParam(required = false) Integer limit) {
+        return productService.fetchNewArrivals(limit);
+    }
+
+    @GetMapping("/recently-updated")
+    public List<ProductCardDto> fetchRecentlyUpdated(@RequestParam(required = false) Integer limit) {
+        return productService.fetchRecentlyUpdated(limit);
+    }
+
+    @GetMapping("/search")
+    public List<Product> searchProducts(@RequestParam("q") String query,
+                                        @RequestParam(required = false) Integer limit) {
+        return productService.searchProducts(query, limit);
+    }
+
+    @GetMapping("/suggest")
+    public List<ProductSuggestIndex.Suggestion> suggest(@RequestParam("q") String prefix,
+                                                        @RequestParam(defaultValue = "8") int limit) {
+        return productSuggestIndex.suggest(prefix, Math.min(limit, 20));
+    }
+
+    // Repeat a parameter (or comma-separate it) to OR values, e.g. ?gender=women&category=dress,saree
+    @GetMapping("/facets")
+    public ProductFacetIndex.Result filterProducts(@RequestParam(required = false) List<String> gender,
+                                                   @RequestParam(required = false) List<String> category,
+                                                   @RequestParam(required = false) List<String> tag,
+                                                   @RequestParam(required = false) List<String> brand,
+                                                   @RequestParam(required = false) Integer minPrice,
+                                                   @RequestParam(required = false) Integer maxPrice) {
+        Map<String, List<String>> selected = new HashMap<>();
+        if (gender != null) selected.put(ProductFacetIndex.GENDER, gender);
+        if (category != null) selected.put(ProductFacetIndex.CATEGORY, category);
+        if (tag != null) selected.put(ProductFacetIndex.TAG, tag);
+        if (brand != null) selected.put(ProductFacetIndex.BRAND, brand);
+        return productFacetIndex.query(selected, minPrice, maxPrice);
+    }
+
+    @GetMapping("/products/page")
+    public ResponseEntity<?> fetchProductPage(@RequestParam(required = false) String sort,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(required = false) Integer size) {
+        try {
+            ProductPageDto page = productService.fetchProductPage(sort, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
 
 
 
@@ -0,0 +1,69 @@
+package com.spring.controller;
+
+import com.spring.dto.ReservationRequest;
+import com.spring.model.StockReservation;
+import com.spring.service.StockReservationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/stock")
+public class StockController {
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @GetMapping("/{productId}")
+    public ResponseEntity<?> availableQuantity(@PathVariable int productId) {
+        Integer available = stockReservationService.availableQuantity(productId);
+        if (available == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Product with ID " + productId + " not found"));
+        }
+        return ResponseEntity.ok(Map.of("productId", productId, "available", available));
+    }
+
+    @PostMapping("/reservations")
+    public ResponseEntity<?> reserve(@RequestBody ReservationRequest request, Principal principal) {
+        try {
+            StockReservation reservation = stockReservationService.reserve(
+                    request.getProductId(), request.getQuantity(), ownerOf(principal));
+            return ResponseEntity.status(HttpStatus.CREATED).body(reservation);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/reservations/{id}/confirm")
+    public ResponseEntity<?> confirm(@PathVariable Long id, Principal principal) {
+        try {
+            stockReservationService.confirm(id, ownerOf(principal));
+            return ResponseEntity.ok(Map.of("id", id, "status", StockReservation.CONFIRMED));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/reservations/{id}/release")
+    public ResponseEntity<?> release(@PathVariable Long id, Principal principal) {
+        try {
+            boolean returned = stockReservationService.release(id, ownerOf(principal));
+            return ResponseEntity.ok(Map.of("id", id, "released", returned));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private static String ownerOf(Principal principal) {
+        return principal == null ? null : principal.getName();
+    }
+}
@@ -0,0 +1,19 @@
+package com.spring.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ImportReport {
+    private int received;
+    private int inserted;
+    private int rejected;
+    private int failed;
+    private int batches;
+    private long elapsedMs;
+
+    // First problems found, "line N: reason"; counts above cover all of them
+    private List<String> errors = new ArrayList<>();
+}
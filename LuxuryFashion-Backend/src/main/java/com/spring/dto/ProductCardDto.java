@@ -0,0 +1,42 @@
+package com.spring.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Slim projection of a product for shop listings, built directly by JPQL constructor expressions.
+ */
+@Data
+@NoArgsConstructor
+public class ProductCardDto {
+    private int prod_id;
+    private String prod_name;
+    private int prod_price;
+    private int selling_price;
+    private String prod_brand;
+    private String prod_category;
+    private String prod_gender;
+    private Double rating;
+    private String badge;
+    private Long createdAt;
+    private Long updatedAt;
+
+    // First product image, filled in after the page query
+    private String thumbnail;
+
+    public ProductCardDto(int prod_id, String prod_name, int prod_price, int selling_price, String prod_brand,
+                          String prod_category, String prod_gender, Double rating, String badge, Long createdAt,
+                          Long updatedAt) {
+        this.prod_id = prod_id;
+        this.prod_name = prod_name;
+        this.prod_price = prod_price;
+        this.selling_price = selling_price;
+        this.prod_brand = prod_brand;
+        this.prod_category = prod_category;
+        this.prod_gender = prod_gender;
+        this.rating = rating;
+        this.badge = badge;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+}
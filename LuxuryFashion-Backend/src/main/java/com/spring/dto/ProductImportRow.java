@@ -0,0 +1,27 @@
+package com.spring.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One product of a bulk import, a line of NDJSON or a CSV record with the same column names.
+ */
+@Data
+public class ProductImportRow {
+    private String prod_name;
+    private String prod_description;
+    private Integer prod_price;
+    private Integer selling_price;
+    private Integer prod_quantity;
+    private String prod_category;
+    private String prod_tag;
+    private String prod_gender;
+    private String prodStatus;
+    private String prod_brand;
+    private String badge;
+    private Double rating;
+
+    // Public image URLs, "|" separated in CSV
+    private List<String> images;
+}
@@ -0,0 +1,18 @@
+package com.spring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPageDto {
+    private List<ProductCardDto> items;
+
+    // Opaque cursor for the next page, null on the last page
+    private String nextCursor;
+    private boolean hasMore;
+}
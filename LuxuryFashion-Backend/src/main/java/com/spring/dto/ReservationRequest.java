@@ -0,0 +1,9 @@
+package com.spring.dto;
+
+import lombok.Data;
+
+@Data
+public class ReservationRequest {
+    private int productId;
+    private int quantity;
+}
@@ -1,9 +1,9 @@
 package com.spring.jwt;
 
-
+import com.spring.service.UserStateCache;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
-import io.jsonwebtoken.MalformedJwtException;
-import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -12,10 +12,11 @@ import jakarta.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -26,14 +27,15 @@ import java.io.IOException;
 public class JwtFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
-    private final UserDetailsService userDetailsService;
+    private final UserStateCache userStateCache;
+    private final SecurityContextRepository securityContextRepository = new RequestAttributeSecurityContextRepository();
 
     @Value("${app.frontend.url}")
     private String frontendUrl;
 
-    public JwtFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
+    public JwtFilter(JwtUtil jwtUtil, UserStateCache userStateCache) {
         this.jwtUtil = jwtUtil;
-        this.userDetailsService = userDetailsService;
+        this.userStateCache = userStateCache;
     }
 
     @Override
@@ -66,23 +68,28 @@ public class JwtFilter extends OncePerRequestFilter {
         }
 
         try {
-            String username = jwtUtil.extractUsername(jwtToken);
+            // One verification for signature and expiry; repeat tokens are answered from JwtUtil's cache
+            Claims claims = jwtUtil.verify(jwtToken);
+            String username = claims.getSubject();
 
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-                if (jwtUtil.validateToken(jwtToken)) {
-                    UsernamePasswordAuthenticationToken authToken =
-                            new UsernamePasswordAuthenticationToken(
-                                    userDetails, null, userDetails.getAuthorities());
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                    System.out.println("Authenticated user: " + username);
-                } else {
-                    response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid JWT token");
+                JwtPrincipal principal = principalFrom(claims);
+                if (principal == null) {
+                    response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid JWT Token");
                     return;
                 }
+
+                UsernamePasswordAuthenticationToken authToken =
+                        new UsernamePasswordAuthenticationToken(
+                                principal, null, principal.authorities());
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(authToken);
+                SecurityContextHolder.setContext(context);
+                // Kept on the request so async dispatches (streamed responses) see the same authentication
+                securityContextRepository.saveContext(context, request, response);
+                System.out.println("Authenticated user: " + username);
             }
 
         } catch (ExpiredJwtException e) {
@@ -90,7 +97,7 @@ public class JwtFilter extends OncePerRequestFilter {
             System.out.println("JWT expired: " + e.getMessage());
             response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "JWT Token has expired");
             return;
-        } catch (MalformedJwtException | UnsupportedJwtException | IllegalArgumentException e) {
+        } catch (JwtException | IllegalArgumentException e) {
             System.out.println("Invalid JWT: " + e.getMessage());
             response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid JWT Token");
             return;
@@ -99,6 +106,16 @@ public class JwtFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    // Built from the claims alone; only tokens issued before uid and role were embedded need the user row
+    private JwtPrincipal principalFrom(Claims claims) {
+        Long userId = claims.get(JwtUtil.USER_ID_CLAIM, Long.class);
+        if (userId != null) {
+            return new JwtPrincipal(userId, claims.getSubject(), claims.get(JwtUtil.ROLE_CLAIM, String.class));
+        }
+        UserStateCache.UserState state = userStateCache.get(claims.getSubject());
+        return state == null ? null : new JwtPrincipal(state.id(), state.email(), state.role());
+    }
+
     private String extractJwt(HttpServletRequest request) {
         // 1️⃣ Check Authorization header
         final String authHeader = request.getHeader("Authorization");
@@ -0,0 +1,22 @@
+package com.spring.jwt;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+/**
+ * The authenticated user as carried by a verified token; {@link #getName()} is the email, like UserShow's username.
+ */
+public record JwtPrincipal(Long id, String email, String role) implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    public List<GrantedAuthority> authorities() {
+        return role == null ? List.of() : List.of(new SimpleGrantedAuthority(role));
+    }
+}
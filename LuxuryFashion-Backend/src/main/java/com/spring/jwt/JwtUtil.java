@@ -1,63 +1,129 @@
 package com.spring.jwt;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.spring.model.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.security.Key;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
+import java.util.HexFormat;
 
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret:}")
-    private String secretKey;
-    @Value("${jwt.expiration:}")
-    private Long expirationTime;
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secretKey.getBytes());
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final Long expirationTime;
+
+    // Tokens that already passed verification, by SHA-256 of the token; null when caching is off.
+    // Concurrent and bounded, each entry leaves at its token's own expiry
+    private final Cache<String, VerifiedToken> verified;
+
+    private record VerifiedToken(Claims claims, long expiresAt) {
     }
 
-    // Generate JWT for username
-    public String generateToken(String username) {
+    public JwtUtil(@Value("${jwt.secret:}") String secretKey,
+                   @Value("${jwt.expiration:}") Long expirationTime,
+                   @Value("${jwt.verified-cache-size:10000}") int verifiedCacheSize) {
+        this.signingKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        this.expirationTime = expirationTime;
+        this.verified = verifiedCacheSize <= 0 ? null : Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(Expiry.<String, VerifiedToken>writing((digest, token) ->
+                        Duration.ofMillis(Math.max(0, token.expiresAt() - System.currentTimeMillis()))))
+                .build();
+    }
+
+    // Generate JWT for the user; id and role ride along so requests authenticate without a user lookup
+    public String generateToken(User user) {
 
 
         return Jwts.builder()
-                .setSubject(username)
+                .setSubject(user.getEmail())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLE_CLAIM, user.getRole())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expirationTime))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * Check signature and expiry once and return the claims. A token seen before is answered from the
+     * cache until its own expiry, without another HMAC or JSON decode.
+     * @throws ExpiredJwtException when the token has expired
+     * @throws JwtException when the token is malformed or the signature does not match
+     * @throws IllegalArgumentException when the token is empty
+     */
+    public Claims verify(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("JWT token is empty");
+        }
+        if (verified == null) {
+            return parser.parseSignedClaims(token).getPayload();
+        }
+
+        String digest = digest(token);
+        VerifiedToken cached = verified.getIfPresent(digest);
+        // Expiry is checked here too: the cache may hand out an entry in the millisecond it runs out,
+        // and the parser should report the expiry the same way it does for an unseen token
+        if (cached != null && System.currentTimeMillis() < cached.expiresAt()) {
+            return cached.claims();
+        }
+
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        Date expiration = claims.getExpiration();
+        // A token without exp would never leave the cache on its own
+        if (expiration != null) {
+            verified.put(digest, new VerifiedToken(claims, expiration.getTime()));
+        }
+        return claims;
+    }
+
     // Extract username (subject) from token
     public String extractUsername(String token) {
-        return parseClaims(token).getSubject();
+        return verify(token).getSubject();
     }
 
     // Check if token is expired
     public boolean isTokenExpired(String token) {
-        return parseClaims(token).getExpiration().before(new Date());
+        try {
+            verify(token);
+            return false;
+        } catch (ExpiredJwtException e) {
+            return true;
+        }
     }
 
     // Validate token signature + expiry
     public boolean validateToken(String token) {
         try {
-            parseClaims(token); // will throw if invalid
-            return !isTokenExpired(token);
+            verify(token);
+            return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
         }
     }
 
-
-    private Claims parseClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
@@ -5,11 +5,13 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableJpaRepositories("com.spring.repo")
 @EntityScan("com.spring.model")
 @ComponentScan(basePackages = "com.spring")
+@EnableScheduling
 public class JwtDemoApplication {
 
     public static void main(String[] args) {
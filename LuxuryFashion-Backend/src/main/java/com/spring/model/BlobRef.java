@@ -0,0 +1,19 @@
+package com.spring.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Number of products and gallery entries using a stored object. An object is deleted only when its
+ * count drops to zero; objects without a row predate reference counting and belong to one owner.
+ */
+@Entity
+@Data
+@Table(name = "blob_ref")
+public class BlobRef {
+    @Id
+    @Column(name = "object_key")
+    private String objectKey;
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+}
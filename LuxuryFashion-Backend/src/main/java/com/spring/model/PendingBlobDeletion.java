@@ -0,0 +1,30 @@
+package com.spring.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Stored object waiting to be deleted by BlobDeletionQueue. Written in the same transaction that
+ * removed its last user, so a crash or a storage outage cannot orphan the object.
+ */
+@Entity
+@Data
+@Table(name = "pending_blob_deletion", indexes = @Index(name = "idx_pending_blob_deletion_next", columnList = "next_attempt_at"))
+public class PendingBlobDeletion {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "object_key", nullable = false)
+    private String objectKey;
+    // For a rendition, the original it was made from; the rendition lives exactly as long as the original
+    @Column(name = "original_key")
+    private String originalKey;
+    private int attempts;
+    // Epoch milliseconds
+    @Column(name = "next_attempt_at")
+    private long nextAttemptAt;
+    @Column(name = "created_at")
+    private long createdAt;
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+}
@@ -1,14 +1,27 @@
 package com.spring.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 
 
 import java.util.List;
+import java.util.Locale;
 
 @Entity
 @Data
+@Table(indexes = {
+        @Index(name = "idx_product_status_category", columnList = "prod_status, prod_category_key"),
+        @Index(name = "idx_product_status_tag", columnList = "prod_status, prod_tag_key"),
+        @Index(name = "idx_product_status_brand", columnList = "prod_status, prod_brand_key"),
+        @Index(name = "idx_product_status_gender", columnList = "prod_status, prod_gender"),
+        @Index(name = "idx_product_status_price", columnList = "prod_status, prod_price"),
+        @Index(name = "idx_product_status_created", columnList = "prod_status, created_ts"),
+        @Index(name = "idx_product_status_updated", columnList = "prod_status, updated_ts")
+})
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -22,18 +35,70 @@ public class Product {
     private String prod_category;
     private String prod_tag;
     private String prod_gender;
+    @Column(name = "prod_status")
     private String prodStatus;
     private String prod_brand;
 
+    // Lowercased copies of category, tag and brand so filters compare plain columns and can use the indexes
+    @JsonIgnore
+    @Column(name = "prod_category_key")
+    private String prod_category_key;
+    @JsonIgnore
+    @Column(name = "prod_tag_key")
+    private String prod_tag_key;
+    @JsonIgnore
+    @Column(name = "prod_brand_key")
+    private String prod_brand_key;
+
+    // SUBSELECT loads the images of every product from the same query in one statement, avoiding 1 + 2N selects
+    // Table and column names are the defaults, spelled out because ProductImportService writes them directly.
+    // The order columns keep images in upload order; the first image is the product's thumbnail
     @ElementCollection
+    @CollectionTable(name = "product_imagenames", joinColumns = @JoinColumn(name = "product_prod_id"))
+    @Column(name = "imagenames")
+    @OrderColumn(name = "imagenames_order")
+    @Fetch(FetchMode.SUBSELECT)
     private List<String> imagenames;
     @ElementCollection
+    @CollectionTable(name = "product_prod_images", joinColumns = @JoinColumn(name = "product_prod_id"))
+    @Column(name = "prod_images")
+    @OrderColumn(name = "prod_images_order")
+    @Fetch(FetchMode.SUBSELECT)
     private List<String> prod_images;
+    // One srcset per image in prod_images order, "<url> 320w, <url> 640w, <original url> 1024w";
+    // filled in by ImageVariantService shortly after the product is added
+    @ElementCollection
+    @CollectionTable(name = "product_prod_image_srcset", joinColumns = @JoinColumn(name = "product_prod_id"))
+    @Column(name = "prod_image_srcset", length = 2000)
+    @OrderColumn(name = "prod_image_srcset_order")
+    @Fetch(FetchMode.SUBSELECT)
+    private List<String> prod_image_srcset;
     private Double rating;
-    private String createdAt;
-    private String updatedAt;
+    // Epoch milliseconds. The old created_at/updated_at varchar columns are copied over by CatalogMigrations.
+    // created_ts is the "newest" keyset column and never null: CatalogMigrations makes it NOT NULL after the
+    // backfill. Mapped nullable so ddl-auto adds it as NULL, not 0, to rows the backfill still has to date
+    @Column(name = "created_ts")
+    private Long createdAt;
+    @Column(name = "updated_ts")
+    private Long updatedAt;
     private String Badge;
 
+    @PrePersist
+    void beforeInsert() {
+        if (createdAt == null) {
+            createdAt = System.currentTimeMillis();
+        }
+        normalizeKeys();
+    }
 
+    @PreUpdate
+    void normalizeKeys() {
+        prod_category_key = normalizeKey(prod_category);
+        prod_tag_key = normalizeKey(prod_tag);
+        prod_brand_key = normalizeKey(prod_brand);
+    }
 
+    public static String normalizeKey(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.spring.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Units of a product held for a buyer. Stock is taken from Product.prod_quantity when the hold is
+ * placed and given back when it is released or expires; confirming keeps it taken.
+ */
+@Entity
+@Data
+@Table(indexes = {
+        @Index(name = "idx_reservation_status_expires", columnList = "status, expires_at"),
+        @Index(name = "idx_reservation_owner_status", columnList = "owner, status")
+})
+public class StockReservation {
+
+    public static final String RESERVED = "RESERVED";
+    public static final String CONFIRMED = "CONFIRMED";
+    public static final String RELEASED = "RELEASED";
+    public static final String EXPIRED = "EXPIRED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "product_id", nullable = false)
+    private int productId;
+    private int quantity;
+    // Email of the signed-in buyer; only holds placed before sign-in was required have none
+    private String owner;
+    private String status;
+    // Epoch milliseconds
+    @Column(name = "created_at")
+    private long createdAt;
+    @Column(name = "expires_at")
+    private long expiresAt;
+}
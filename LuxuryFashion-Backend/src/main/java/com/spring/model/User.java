@@ -8,6 +8,7 @@ import java.util.List;
 
 @Entity
 @Data
+@Table(indexes = @Index(name = "idx_user_email", columnList = "email_id"))
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
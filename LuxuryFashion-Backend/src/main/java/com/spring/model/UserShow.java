@@ -1,6 +1,7 @@
 package com.spring.model;
 
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
@@ -15,7 +16,8 @@ public class UserShow implements UserDetails {
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return List.of(); // Empty authorities, update if needed
+        // Same authorities the JWT filter grants from the token's role claim
+        return user.getRole() == null ? List.of() : List.of(new SimpleGrantedAuthority(user.getRole()));
     }
 
     @Override
@@ -0,0 +1,31 @@
+package com.spring.repo;
+
+import com.spring.model.BlobRef;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface BlobRefRepository extends JpaRepository<BlobRef, String> {
+
+    // Single-statement upsert, so two admins adding the same photo cannot both insert the row
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO blob_ref (object_key, ref_count) VALUES (:key, 1) "
+            + "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1", nativeQuery = true)
+    int increment(@Param("key") String key);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE BlobRef b SET b.refCount = b.refCount - 1 WHERE b.objectKey = :key AND b.refCount > 0")
+    int decrement(@Param("key") String key);
+
+    // Succeeds for exactly one caller once the count is zero
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM BlobRef b WHERE b.objectKey = :key AND b.refCount = 0")
+    int deleteIfUnreferenced(@Param("key") String key);
+}
@@ -1,13 +1,28 @@
 package com.spring.repo;
 
 import com.spring.model.Gallery;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface GalleryRepository extends JpaRepository<Gallery, Long> {
 
     List<Gallery> findByActiveTrue();
+
+    // Locks the rows about to flip so the UPDATE that follows changes exactly these ids
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT g.gallery_id FROM Gallery g WHERE g.gallery_id IN :ids AND g.active <> :active")
+    List<Long> findIdsToFlip(@Param("ids") Collection<Long> ids, @Param("active") boolean active);
+
+    @Modifying
+    @Query("UPDATE Gallery g SET g.active = :active WHERE g.gallery_id IN :ids AND g.active <> :active")
+    int updateActive(@Param("ids") Collection<Long> ids, @Param("active") boolean active);
 }
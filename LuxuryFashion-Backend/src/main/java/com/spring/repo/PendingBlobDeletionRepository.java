@@ -0,0 +1,17 @@
+package com.spring.repo;
+
+import com.spring.model.PendingBlobDeletion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PendingBlobDeletionRepository extends JpaRepository<PendingBlobDeletion, Long> {
+
+    @Query("SELECT d FROM PendingBlobDeletion d WHERE d.nextAttemptAt <= :now ORDER BY d.id")
+    List<PendingBlobDeletion> findDue(@Param("now") long now, Pageable pageable);
+}
@@ -1,11 +1,16 @@
 package com.spring.repo;
 
+import com.spring.dto.ProductCardDto;
 import com.spring.model.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -17,27 +22,103 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE p.prod_gender = :gender AND p.prodStatus = :status")
     List<Product> findByGenderAndStatus(@Param("gender") String gender, @Param("status") String status);
 
-    @Query("SELECT p FROM Product p WHERE LOWER(p.prod_category) = LOWER(:category) AND p.prodStatus = :status")
+    @Query("SELECT p FROM Product p WHERE p.prod_category_key = LOWER(TRIM(:category)) AND p.prodStatus = :status")
     List<Product> findByCategoryAndStatus(@Param("category") String category, @Param("status") String status);
 
 
-@Query("SELECT p FROM Product p WHERE LOWER(p.prod_tag) = LOWER(:tag) AND p.prodStatus = :status")
+@Query("SELECT p FROM Product p WHERE p.prod_tag_key = LOWER(TRIM(:tag)) AND p.prodStatus = :status")
  List<Product> findByTagAndStatus(@Param("tag") String tag, @Param("status") String status);
 
+    // Fills the normalized key columns of rows written before they existed, returns the number of rows fixed
+    @Modifying
+    @Transactional
     @Query("""
-    SELECT p FROM Product p
-    WHERE p.prodStatus = 'ACTIVE'
-      AND (
-           LOWER(p.prod_name) LIKE LOWER(CONCAT('%', :keyword, '%'))
-        OR LOWER(p.prod_description) LIKE LOWER(CONCAT('%', :keyword, '%'))
-        OR LOWER(p.prod_category) LIKE LOWER(CONCAT('%', :keyword, '%'))
-        OR LOWER(p.prod_tag) LIKE LOWER(CONCAT('%', :keyword, '%'))
-        OR LOWER(p.prod_brand) LIKE LOWER(CONCAT('%', :keyword, '%'))
-      )
+    UPDATE Product p
+    SET p.prod_category_key = LOWER(TRIM(p.prod_category)),
+        p.prod_tag_key = LOWER(TRIM(p.prod_tag)),
+        p.prod_brand_key = LOWER(TRIM(p.prod_brand))
+    WHERE (p.prod_category_key IS NULL AND p.prod_category IS NOT NULL)
+       OR (p.prod_tag_key IS NULL AND p.prod_tag IS NOT NULL)
+       OR (p.prod_brand_key IS NULL AND p.prod_brand IS NOT NULL)
 """)
-    List<Product> searchActiveProducts(@Param("keyword") String keyword);
+    int backfillNormalizedKeys();
 
+    // Keyset (seek) pages for the shop listing: each query continues after the last row of the previous page
 
+    @Query("""
+    SELECT new com.spring.dto.ProductCardDto(p.prod_id, p.prod_name, p.prod_price, p.selling_price, p.prod_brand,
+           p.prod_category, p.prod_gender, p.rating, p.Badge, p.createdAt, p.updatedAt)
+    FROM Product p
+    WHERE p.prodStatus = :status AND p.prod_id > :afterId
+    ORDER BY p.prod_id
+""")
+    List<ProductCardDto> findCardsAfterId(@Param("status") String status, @Param("afterId") int afterId, Pageable pageable);
 
-}
+    @Query("""
+    SELECT new com.spring.dto.ProductCardDto(p.prod_id, p.prod_name, p.prod_price, p.selling_price, p.prod_brand,
+           p.prod_category, p.prod_gender, p.rating, p.Badge, p.createdAt, p.updatedAt)
+    FROM Product p
+    WHERE p.prodStatus = :status
+      AND (p.prod_price > :price OR (p.prod_price = :price AND p.prod_id > :afterId))
+    ORDER BY p.prod_price, p.prod_id
+""")
+    List<ProductCardDto> findCardsByPriceAsc(@Param("status") String status, @Param("price") int price,
+                                             @Param("afterId") int afterId, Pageable pageable);
+
+    @Query("""
+    SELECT new com.spring.dto.ProductCardDto(p.prod_id, p.prod_name, p.prod_price, p.selling_price, p.prod_brand,
+           p.prod_category, p.prod_gender, p.rating, p.Badge, p.createdAt, p.updatedAt)
+    FROM Product p
+    WHERE p.prodStatus = :status
+      AND (p.prod_price < :price OR (p.prod_price = :price AND p.prod_id < :afterId))
+    ORDER BY p.prod_price DESC, p.prod_id DESC
+""")
+    List<ProductCardDto> findCardsByPriceDesc(@Param("status") String status, @Param("price") int price,
+                                              @Param("afterId") int afterId, Pageable pageable);
+
+    @Query("""
+    SELECT new com.spring.dto.ProductCardDto(p.prod_id, p.prod_name, p.prod_price, p.selling_price, p.prod_brand,
+           p.prod_category, p.prod_gender, p.rating, p.Badge, p.createdAt, p.updatedAt)
+    FROM Product p
+    WHERE p.prodStatus = :status
+      AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.prod_id < :afterId))
+    ORDER BY p.createdAt DESC, p.prod_id DESC
+""")
+    List<ProductCardDto> findCardsByNewest(@Param("status") String status, @Param("createdAt") long createdAt,
+                                           @Param("afterId") int afterId, Pageable pageable);
+
+    // Served by a backward scan of idx_product_status_updated that stops after the page
+    @Query("""
+    SELECT new com.spring.dto.ProductCardDto(p.prod_id, p.prod_name, p.prod_price, p.selling_price, p.prod_brand,
+           p.prod_category, p.prod_gender, p.rating, p.Badge, p.createdAt, p.updatedAt)
+    FROM Product p
+    WHERE p.prodStatus = :status AND p.updatedAt IS NOT NULL
+    ORDER BY p.updatedAt DESC
+""")
+    List<ProductCardDto> findCardsByRecentlyUpdated(@Param("status") String status, Pageable pageable);
+
+    // Chunked walk over the whole catalog: ids first, then the entities of one chunk
+    @Query("SELECT p.prod_id FROM Product p WHERE p.prod_id > :afterId ORDER BY p.prod_id")
+    List<Integer> findIdsAfter(@Param("afterId") int afterId, Pageable pageable);
 
+    @Query("SELECT p FROM Product p WHERE p.prod_id IN :ids ORDER BY p.prod_id")
+    List<Product> findAllByIdsOrdered(@Param("ids") Collection<Integer> ids);
+
+    // (product id, first image url) pairs used to attach a thumbnail to each card of a page
+    @Query("SELECT p.prod_id, i FROM Product p JOIN p.prod_images i WHERE p.prod_id IN :ids AND INDEX(i) = 0")
+    List<Object[]> findThumbnailsForProducts(@Param("ids") Collection<Integer> ids);
+
+    // Takes stock only if enough is left; the row lock is held for the caller's short transaction only
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.prod_quantity = p.prod_quantity - :quantity WHERE p.prod_id = :productId AND p.prod_quantity >= :quantity")
+    int takeStock(@Param("productId") int productId, @Param("quantity") int quantity);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Product p SET p.prod_quantity = p.prod_quantity + :quantity WHERE p.prod_id = :productId")
+    int returnStock(@Param("productId") int productId, @Param("quantity") int quantity);
+
+    @Query("SELECT p.prod_quantity FROM Product p WHERE p.prod_id = :productId")
+    Integer findQuantity(@Param("productId") int productId);
+}
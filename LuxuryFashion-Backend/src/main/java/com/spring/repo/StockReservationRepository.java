@@ -0,0 +1,36 @@
+package com.spring.repo;
+
+import com.spring.model.StockReservation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    // Compare-and-set on the status: when confirm, release and expiry race, exactly one of them wins
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.status = :to WHERE r.id = :id AND r.status = :from")
+    int transition(@Param("id") Long id, @Param("from") String from, @Param("to") String to);
+
+    @Modifying
+    @Query("""
+    UPDATE StockReservation r SET r.status = 'CONFIRMED'
+    WHERE r.id = :id AND r.status = 'RESERVED' AND r.expiresAt >= :now
+""")
+    int confirmIfLive(@Param("id") Long id, @Param("now") long now);
+
+    @Query("""
+    SELECT COUNT(r) FROM StockReservation r
+    WHERE r.owner = :owner AND r.status = 'RESERVED' AND r.expiresAt >= :now
+""")
+    long countLiveHolds(@Param("owner") String owner, @Param("now") long now);
+
+    @Query("SELECT r.id FROM StockReservation r WHERE r.status = 'RESERVED' AND r.expiresAt < :now ORDER BY r.expiresAt")
+    List<Long> findExpiredIds(@Param("now") long now, Pageable pageable);
+}
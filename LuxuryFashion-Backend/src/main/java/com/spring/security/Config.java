@@ -21,6 +21,7 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -32,21 +33,24 @@ public class Config {
     @Autowired
     private JwtFilter jwtFilter;
     @Autowired
+    private RateLimitFilter rateLimitFilter;
+    @Autowired
     private com.spring.jwt.JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
     @Autowired
     private UserDetailsService userDetailsService;
     @Autowired
     private OAth2SuccessHandler oAth2SuccessHandler;
 
+    // One encoder for login, registration and the authentication provider, so every hash has the same cost
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.bcrypt.strength:12}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 @Value("${app.frontend.url}")
 private String frontendUrl;
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, AuthenticationProvider authenticationProvider) throws Exception {
         http
                 // Disable CSRF for APIs
                 .csrf(csrf -> csrf.disable())
@@ -61,6 +65,8 @@ private String frontendUrl;
                         .permitAll()
                         .requestMatchers(HttpMethod.POST, "/auth/login").permitAll()
                         .requestMatchers("/admin-api/**").authenticated() // admin-only
+                        // Holds take real stock, only signed-in buyers may place or settle them
+                        .requestMatchers("/stock/reservations/**").authenticated()
                         .requestMatchers("/luxuryfashion/**","/luxuryfashion/fetch-gallery").permitAll()
                         .anyRequest().permitAll()
                 )
@@ -72,8 +78,12 @@ private String frontendUrl;
                 .anonymous(anon -> anon.authorities("ROLE_ANONYMOUS"))
                 .exceptionHandling(ex -> ex.authenticationEntryPoint(jwtAuthenticationEntryPoint))
                 .sessionManagement(sess -> sess.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .authenticationProvider(authenticationProvider())
-                .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
+                // JwtFilter saves its authentication here, async dispatches of streamed responses load it back
+                .securityContext(context -> context.securityContextRepository(new RequestAttributeSecurityContextRepository()))
+                .authenticationProvider(authenticationProvider)
+                .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
+                // Throttle credential endpoints before any token parsing or user lookup
+                .addFilterBefore(rateLimitFilter, JwtFilter.class);
 
         return http.build();
     }
@@ -92,9 +102,9 @@ private String frontendUrl;
 
 
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
-        provider.setPasswordEncoder(new BCryptPasswordEncoder(12));
+        provider.setPasswordEncoder(passwordEncoder);
         provider.setUserDetailsService(userDetailsService);
         return provider;
     }
@@ -0,0 +1,320 @@
+package com.spring.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Token buckets per client IP and per account in front of the credential endpoints, so a stuffing burst is
+ * turned away before it reaches findByEmail and BCrypt. Runs ahead of JwtFilter; a rejected request costs a
+ * map lookup and one CAS. Limits are written as "capacity/period", e.g. "10/1m" allows a burst of 10 and
+ * refills 10 per minute; an empty value turns that check off. Account buckets are keyed by whatever email
+ * the client sends, so each IP may only open a few new ones; and once the map is full a new client is turned
+ * away on its own rather than sharing a bucket someone else could drain.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    static final String LOGIN_PATH = "/auth/login";
+    static final String REGISTER_PATH = "/users/register";
+
+    // Login and registration bodies are a few hundred bytes; anything far larger is not a real client
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+    // How often a full map may be swept from the request path; the scheduled sweep covers the rest
+    private static final long INLINE_SWEEP_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, Rule> rules;
+    private final Limit newAccountsPerIp;
+    private final boolean trustForwardedFor;
+    private final int maxBuckets;
+    private final long idleNanos;
+
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastInlineSweep = new AtomicLong(System.nanoTime() - INLINE_SWEEP_NANOS);
+
+    record Limit(double capacity, double tokensPerNano) {
+
+        static Limit parse(String spec) {
+            if (spec == null || spec.isBlank()) {
+                return null;
+            }
+            String[] parts = spec.trim().split("/");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Rate limit must look like 10/1m: " + spec);
+            }
+            int capacity = Integer.parseInt(parts[0].trim());
+            Duration period = DurationStyle.detectAndParse(parts[1].trim());
+            if (capacity <= 0 || period.isZero() || period.isNegative()) {
+                throw new IllegalArgumentException("Rate limit must be positive: " + spec);
+            }
+            return new Limit(capacity, capacity / (double) period.toNanos());
+        }
+
+        // Whole seconds until one token is back, for Retry-After
+        long retryAfterSeconds() {
+            return Math.max(1, (long) Math.ceil(1 / tokensPerNano / TimeUnit.SECONDS.toNanos(1)));
+        }
+    }
+
+    // Either limit may be null
+    record Rule(Limit perIp, Limit perAccount) {
+    }
+
+    /**
+     * Lock-free bucket: the state is one immutable value swapped with CAS, refilled lazily on each take.
+     */
+    static final class TokenBucket {
+
+        private record State(double tokens, long refilledAt) {
+        }
+
+        private final Limit limit;
+        private final AtomicReference<State> state;
+        private volatile long lastUsed;
+
+        TokenBucket(Limit limit, long now) {
+            this.limit = limit;
+            this.state = new AtomicReference<>(new State(limit.capacity(), now));
+            this.lastUsed = now;
+        }
+
+        boolean tryTake(long now) {
+            lastUsed = now;
+            while (true) {
+                State current = state.get();
+                double tokens = available(current, now);
+                if (tokens < 1) {
+                    return false;
+                }
+                // Another thread may have refilled with a later clock reading; never move time backwards
+                State next = new State(tokens - 1, Math.max(now, current.refilledAt()));
+                if (state.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+
+        // A bucket that has been idle long enough to refill completely is the same as a new one
+        boolean isIdle(long now, long idleNanos) {
+            return now - lastUsed >= idleNanos && available(state.get(), now) >= limit.capacity();
+        }
+
+        private double available(State current, long now) {
+            long elapsed = Math.max(0, now - current.refilledAt());
+            return Math.min(limit.capacity(), current.tokens() + elapsed * limit.tokensPerNano());
+        }
+    }
+
+    public RateLimitFilter(ObjectMapper objectMapper,
+                           @Value("${rate-limit.login.per-ip:20/1m}") String loginPerIp,
+                           @Value("${rate-limit.login.per-account:5/1m}") String loginPerAccount,
+                           @Value("${rate-limit.register.per-ip:5/10m}") String registerPerIp,
+                           @Value("${rate-limit.register.per-account:3/1h}") String registerPerAccount,
+                           @Value("${rate-limit.new-accounts-per-ip:10/10m}") String newAccountsPerIp,
+                           @Value("${rate-limit.trust-forwarded-for:false}") boolean trustForwardedFor,
+                           @Value("${rate-limit.max-buckets:100000}") int maxBuckets,
+                           @Value("${rate-limit.idle-ms:600000}") long idleMillis) {
+        this.objectMapper = objectMapper;
+        this.rules = Map.of(
+                LOGIN_PATH, new Rule(Limit.parse(loginPerIp), Limit.parse(loginPerAccount)),
+                REGISTER_PATH, new Rule(Limit.parse(registerPerIp), Limit.parse(registerPerAccount)));
+        this.newAccountsPerIp = Limit.parse(newAccountsPerIp);
+        this.trustForwardedFor = trustForwardedFor;
+        this.maxBuckets = maxBuckets;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !rules.containsKey(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = request.getServletPath();
+        Rule rule = rules.get(path);
+        String ip = clientIp(request);
+
+        // The IP check needs nothing from the body, so a flood is refused before anything is read
+        if (rule.perIp() != null && !tryTake(path + "|ip|" + ip, rule.perIp())) {
+            reject(response, rule.perIp());
+            return;
+        }
+        if (rule.perAccount() == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        byte[] body = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+            return;
+        }
+        String account = accountOf(body);
+        if (account != null) {
+            String accountKey = path + "|account|" + account;
+            // An account without a bucket costs the IP one of its new-account tokens, so one address
+            // cannot fill the map with made-up emails
+            if (newAccountsPerIp != null && !buckets.containsKey(accountKey)
+                    && !tryTake(path + "|new-accounts|" + ip, newAccountsPerIp)) {
+                reject(response, newAccountsPerIp);
+                return;
+            }
+            if (!tryTake(accountKey, rule.perAccount())) {
+                reject(response, rule.perAccount());
+                return;
+            }
+        }
+        filterChain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.evict-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isIdle(now, idleNanos));
+    }
+
+    boolean tryTake(String key, Limit limit) {
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            long lastSweep = lastInlineSweep.get();
+            if (buckets.size() >= maxBuckets && now - lastSweep >= INLINE_SWEEP_NANOS
+                    && lastInlineSweep.compareAndSet(lastSweep, now)) {
+                evictIdle();
+            }
+            // Still full: turn this one new client away until idle buckets age out. A bucket shared by every
+            // newcomer could be drained by whoever filled the map, locking everyone else out with it
+            if (buckets.size() >= maxBuckets) {
+                return false;
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(limit, now));
+        }
+        return bucket.tryTake(now);
+    }
+
+    private void reject(HttpServletResponse response, Limit limit) throws IOException {
+        response.setStatus(429);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(limit.retryAfterSeconds()));
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\": \"Too many requests, please try again later\"}");
+    }
+
+    private String clientIp(HttpServletRequest request) {
+        if (trustForwardedFor) {
+            String forwardedFor = request.getHeader("X-Forwarded-For");
+            if (forwardedFor != null && !forwardedFor.isBlank()) {
+                // The last hop is the one our own proxy appended; earlier entries are whatever the client sent
+                String[] hops = forwardedFor.split(",");
+                return hops[hops.length - 1].trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    // Both endpoints take a JSON body with an "email" field
+    private String accountOf(byte[] body) {
+        try {
+            JsonNode email = objectMapper.readTree(body).path("email");
+            return email.isTextual() ? email.asText().trim().toLowerCase(Locale.ROOT) : null;
+        } catch (IOException e) {
+            // Not JSON; the controller will reject it
+            return null;
+        }
+    }
+
+    /**
+     * Replays a body the filter already read, so the controller can still bind it.
+     */
+    static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // The whole body is already in memory: it is available at once and then finished
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
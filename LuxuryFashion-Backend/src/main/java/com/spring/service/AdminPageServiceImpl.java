@@ -1,38 +1,85 @@
 package com.spring.service;
 
-import com.google.cloud.storage.BlobInfo;
-import com.google.cloud.storage.Storage;
-import com.google.cloud.storage.StorageOptions;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.spring.dto.ProductDto;
 import com.spring.model.Gallery;
 import com.spring.model.Product;
 import com.spring.repo.GalleryRepository;
 import com.spring.repo.ProductRepository;
+import com.spring.storage.ContentAddressedStore;
+import com.spring.storage.ObjectStore;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 @Service
 public class AdminPageServiceImpl implements AdminService {
 
+    static final int EXPORT_CHUNK_SIZE = 200;
+    private static final String PHOTO_PREFIX = "photos/";
+
     private final ProductRepository productRepository;
     private final GalleryRepository galleryRepository;
-    public AdminPageServiceImpl(ProductRepository productRepository, GalleryRepository galleryRepository) {
+    private final CatalogCache catalogCache;
+    private final GalleryCache galleryCache;
+    private final ObjectMapper objectMapper;
+    private final ObjectStore objectStore;
+    private final ImageVariantService imageVariantService;
+    private final ContentAddressedStore contentAddressedStore;
+    private final BlobReferenceService blobReferenceService;
+    private final BlobDeletionQueue blobDeletionQueue;
+    private final GalleryImageIngestor galleryImageIngestor;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate writeTransaction;
+    // Uploads block on network I/O, a virtual thread each is cheap; the semaphore in uploadPhotos bounds them
+    private final ExecutorService uploadExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    public AdminPageServiceImpl(ProductRepository productRepository, GalleryRepository galleryRepository,
+                                CatalogCache catalogCache, GalleryCache galleryCache,
+                                ObjectMapper objectMapper, ObjectStore objectStore,
+                                ImageVariantService imageVariantService,
+                                ContentAddressedStore contentAddressedStore,
+                                BlobReferenceService blobReferenceService,
+                                BlobDeletionQueue blobDeletionQueue,
+                                GalleryImageIngestor galleryImageIngestor,
+                                EntityManager entityManager,
+                                PlatformTransactionManager transactionManager) {
         this.productRepository = productRepository;
         this.galleryRepository = galleryRepository;
+        this.catalogCache = catalogCache;
+        this.galleryCache = galleryCache;
+        this.objectMapper = objectMapper;
+        this.objectStore = objectStore;
+        this.imageVariantService = imageVariantService;
+        this.contentAddressedStore = contentAddressedStore;
+        this.blobReferenceService = blobReferenceService;
+        this.blobDeletionQueue = blobDeletionQueue;
+        this.galleryImageIngestor = galleryImageIngestor;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
     }
-    @Value("${product.picture.path}")
-    private String profilePicturePath;
+    @Value("${product.upload.max-concurrency:4}")
+    private int uploadConcurrency;
 
 
     public List<Product> fetchProducts() {
@@ -50,50 +97,47 @@ public class AdminPageServiceImpl implements AdminService {
         return products;
     }
 
-
-    public Product addProduct(ProductDto dto) {
-        Product savedProduct = new Product();
-        List<String> imageUrls = new ArrayList<>();
-
-
-        Storage storage = StorageOptions.getDefaultInstance().getService();
-        String bucketName = "productphotos1";
-
-        if (dto.getProd_photo() != null && !dto.getProd_photo().isEmpty()) {
-            int index = 0;
-            for (MultipartFile photo : dto.getProd_photo()) {
-                if (!photo.isEmpty()) {
-                    try {
-                        // Determine file extension
-                        String extension = ".jpg";
-                        String originalFilename = photo.getOriginalFilename();
-                        if (originalFilename != null && originalFilename.contains(".")) {
-                            extension = originalFilename.substring(originalFilename.lastIndexOf("."));
+    @Override
+    public void exportProducts(OutputStream out) throws IOException {
+        SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out);
+        int afterId = 0;
+        while (true) {
+            int lastId = afterId;
+            // One short read-only transaction per chunk. With open-in-view the chunks all join the request's
+            // persistence context, so it is cleared after each one; only one chunk is ever held
+            Integer nextAfterId = readOnlyTransaction.execute(status -> {
+                List<Integer> ids = productRepository.findIdsAfter(lastId, PageRequest.of(0, EXPORT_CHUNK_SIZE));
+                if (ids.isEmpty()) {
+                    return null;
+                }
+                try {
+                    for (Product product : productRepository.findAllByIdsOrdered(ids)) {
+                        Product row = CatalogCache.detachedCopy(product);
+                        if (row.getImagenames() != null && !row.getImagenames().isEmpty()) {
+                            row.setProd_images(row.getImagenames());
                         }
-
-                        // Create unique file name
-                        String fileName = dto.getProd_name().replaceAll("\\s+", "_")
-                                + "_" + index + "_" + System.currentTimeMillis() + extension;
-
-                        String objectName = "photos/" + fileName;
-
-                        // Upload file to GCS
-                        BlobInfo blobInfo = BlobInfo.newBuilder(bucketName, objectName)
-                                .setContentType(photo.getContentType())
-                                .build();
-                        storage.create(blobInfo, photo.getInputStream());
-
-                        // Construct public URL
-                        String publicUrl = "https://storage.googleapis.com/" + bucketName + "/" + objectName;
-                        imageUrls.add(publicUrl);
-
-                        index++;
-                    } catch (IOException e) {
-                        throw new RuntimeException("Error uploading product image to GCS", e);
+                        writer.write(row);
                     }
+                    writer.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
+                entityManager.clear();
+                return ids.get(ids.size() - 1);
+            });
+            if (nextAfterId == null) {
+                break;
             }
+            afterId = nextAfterId;
         }
+        writer.flush();
+    }
+
+
+    public Product addProduct(ProductDto dto) {
+        Product savedProduct = new Product();
+
+        List<String> imageUrls = uploadPhotos(dto);
 
         // Map DTO to Entity fields
         savedProduct.setProd_name(dto.getProd_name());
@@ -112,12 +156,92 @@ public class AdminPageServiceImpl implements AdminService {
         savedProduct.setImagenames(imageUrls);
         savedProduct.setProd_images(imageUrls);
 
-        String currentTime = String.valueOf(System.currentTimeMillis());
+        long currentTime = System.currentTimeMillis();
         savedProduct.setCreatedAt(currentTime);
         savedProduct.setUpdatedAt(currentTime);
 
-        return productRepository.save(savedProduct);
+        // References are taken in the save's transaction, so no delete can see the photos unused in between
+        Product persisted = writeTransaction.execute(status -> {
+            for (String imageUrl : imageUrls) {
+                acquireBlob(imageUrl);
+            }
+            return productRepository.save(savedProduct);
+        });
+        catalogCache.put(persisted);
+        imageVariantService.generateAsync(persisted.getProd_id(), imageUrls);
+        return persisted;
     }
+    /**
+     * Upload the photos concurrently, at most uploadConcurrency at a time, and return their public URLs
+     * in the order the photos were sent. Photos are stored under the SHA-256 of their bytes, a photo that
+     * is already in the store is not uploaded again. If any upload fails, the objects this call created
+     * are queued for deletion.
+     */
+    private List<String> uploadPhotos(ProductDto dto) {
+        List<MultipartFile> photos = new ArrayList<>();
+        if (dto.getProd_photo() != null) {
+            for (MultipartFile photo : dto.getProd_photo()) {
+                if (!photo.isEmpty()) {
+                    photos.add(photo);
+                }
+            }
+        }
+        if (photos.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Semaphore permits = new Semaphore(Math.max(1, uploadConcurrency));
+        List<Future<ContentAddressedStore.Stored>> uploads = new ArrayList<>();
+        for (MultipartFile photo : photos) {
+            String originalFilename = photo.getOriginalFilename();
+            String extension = originalFilename != null && originalFilename.contains(".")
+                    ? originalFilename.substring(originalFilename.lastIndexOf(".")) : null;
+            uploads.add(uploadExecutor.submit(() -> {
+                permits.acquire();
+                try {
+                    return contentAddressedStore.store(PHOTO_PREFIX, extension, ".jpg",
+                            photo.getContentType(), photo::getInputStream);
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+
+        // Wait for every upload, even after a failure, so cleanup cannot race one still in flight
+        List<String> keys = new ArrayList<>();
+        List<String> created = new ArrayList<>();
+        Throwable failure = null;
+        for (Future<ContentAddressedStore.Stored> upload : uploads) {
+            try {
+                ContentAddressedStore.Stored stored = upload.get();
+                keys.add(stored.key());
+                if (stored.created()) {
+                    created.add(stored.key());
+                }
+            } catch (ExecutionException e) {
+                failure = failure == null ? e.getCause() : failure;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (failure != null) {
+            blobDeletionQueue.enqueue(created);
+            throw new RuntimeException("Error uploading product image", failure);
+        }
+
+        List<String> imageUrls = new ArrayList<>();
+        for (String key : keys) {
+            imageUrls.add(objectStore.url(key));
+        }
+        return imageUrls;
+    }
+
+    @PreDestroy
+    void shutdownUploads() {
+        uploadExecutor.shutdown();
+    }
+
     @Override
     public Product updateProduct(Long productId, ProductDto dto) {
         Optional<Product> product = productRepository.findById(productId);
@@ -135,10 +259,11 @@ public class AdminPageServiceImpl implements AdminService {
             toupdate.setProd_brand(dto.getProd_brand());
             toupdate.setBadge(dto.getBadge());
             toupdate.setRating(dto.getRating());
-            String currentTime = String.valueOf(System.currentTimeMillis());
-            toupdate.setCreatedAt(currentTime);
-            toupdate.setUpdatedAt(currentTime);
-            return productRepository.save(toupdate);
+            // createdAt keeps the original listing time
+            toupdate.setUpdatedAt(System.currentTimeMillis());
+            Product persisted = productRepository.save(toupdate);
+            catalogCache.put(persisted);
+            return persisted;
         }
         else {
             throw new RuntimeException("Product not found, not able to update it ");
@@ -147,30 +272,26 @@ public class AdminPageServiceImpl implements AdminService {
 
 
     public void deleteProduct(Long productId) {
-        Optional<Product> productOpt = productRepository.findById(productId);
-        if (!productOpt.isPresent()) {
-            throw new RuntimeException("Product with ID " + productId + " not found");
-        }
-
-        Product product = productOpt.get();
+        writeTransaction.executeWithoutResult(status -> {
+            Optional<Product> productOpt = productRepository.findById(productId);
+            if (!productOpt.isPresent()) {
+                throw new RuntimeException("Product with ID " + productId + " not found");
+            }
 
-        Storage storage = StorageOptions.getDefaultInstance().getService();
-        String bucketName = "productphotos1";
+            Product product = productOpt.get();
 
-        if (product.getProd_images() != null) {
-            for (String imageUrl : product.getProd_images()) {
-                try {
-                    // Extract object name from URL
-                    String objectName = imageUrl.substring(imageUrl.indexOf(bucketName) + bucketName.length() + 1);
-                    storage.delete(bucketName, objectName);
-                } catch (Exception e) {
-                    System.err.println("Failed to delete image from GCS: " + imageUrl + " - " + e.getMessage());
+            if (product.getProd_images() != null) {
+                // Only objects no other product or gallery entry still uses go, together with their renditions.
+                // Queued in the same transaction as the row delete; the objects go once it has committed
+                for (String imageUrl : product.getProd_images()) {
+                    releaseBlob(imageUrl);
                 }
             }
-        }
 
-        // Delete product from database
-        productRepository.deleteById(productId);
+            // Delete product from database
+            productRepository.delete(product);
+        });
+        catalogCache.evict(productId.intValue());
     }
 
 
@@ -183,8 +304,25 @@ public class AdminPageServiceImpl implements AdminService {
     public ResponseEntity<?> addGalleryImages(Gallery gallery) {   if (gallery.getGallery_id() != null && gallery.getGallery_id() == 0) {
         gallery.setGallery_id(null); 
     }
+        try {
+            gallery.setImageUrl(galleryImageIngestor.ingest(gallery.getImageUrl()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to store gallery image", "message", String.valueOf(e.getMessage())));
+        }
 
-      galleryRepository.save(gallery);
+        writeTransaction.executeWithoutResult(status -> {
+            String previousUrl = gallery.getGallery_id() == null ? null
+                    : galleryRepository.findById(gallery.getGallery_id()).map(Gallery::getImageUrl).orElse(null);
+            if (!Objects.equals(previousUrl, gallery.getImageUrl())) {
+                acquireBlob(gallery.getImageUrl());
+                releaseBlob(previousUrl);
+            }
+            galleryRepository.save(gallery);
+        });
+        galleryCache.invalidate();
         return ResponseEntity.ok(gallery);
     }
 
@@ -209,18 +347,77 @@ public class AdminPageServiceImpl implements AdminService {
     public ResponseEntity<?> updateGalleryStatus(List<Gallery> galleries) {
         try {
             List<Gallery> updated = galleryRepository.saveAll(galleries);
+            galleryCache.invalidate();
             return ResponseEntity.ok(updated);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Failed to update gallery status", "message", e.getMessage()));
         }
     }
+
+    @Override
+    public List<Long> updateGalleryStatuses(Map<Long, Boolean> statuses) {
+        List<Long> activate = new ArrayList<>();
+        List<Long> deactivate = new ArrayList<>();
+        statuses.forEach((id, active) -> {
+            if (id != null && active != null) {
+                (active ? activate : deactivate).add(id);
+            }
+        });
+
+        List<Long> changed = writeTransaction.execute(status -> {
+            List<Long> flipped = new ArrayList<>();
+            if (!activate.isEmpty()) {
+                flipped.addAll(galleryRepository.findIdsToFlip(activate, true));
+                galleryRepository.updateActive(activate, true);
+            }
+            if (!deactivate.isEmpty()) {
+                flipped.addAll(galleryRepository.findIdsToFlip(deactivate, false));
+                galleryRepository.updateActive(deactivate, false);
+            }
+            return flipped;
+        });
+        // After the commit, so a reload cannot cache the old flags again
+        if (!changed.isEmpty()) {
+            galleryCache.invalidate();
+        }
+        return changed;
+    }
+
 @Override
 public void deleteGalleryImage(Long id) {
         if (!galleryRepository.existsById(id)) {
             throw new IllegalArgumentException("Gallery image with ID " + id + " not found");
         }
 
-        galleryRepository.deleteById(id);
+        writeTransaction.executeWithoutResult(status -> {
+            String imageUrl = galleryRepository.findById(id).map(Gallery::getImageUrl).orElse(null);
+            galleryRepository.deleteById(id);
+            releaseBlob(imageUrl);
+        });
+        galleryCache.invalidate();
+    }
+
+    // Products and gallery entries share stored objects through the same reference counts
+    private void acquireBlob(String url) {
+        String key = objectStore.keyFromUrl(url);
+        if (key != null) {
+            blobReferenceService.acquire(key);
+        }
+    }
+
+    /**
+     * Drop one reference to the object behind the URL. Once nothing uses it any more, the object and its
+     * renditions are queued for deletion in the caller's transaction.
+     */
+    private void releaseBlob(String url) {
+        String key = objectStore.keyFromUrl(url);
+        if (key == null || !blobReferenceService.release(key)) {
+            return;
+        }
+        List<String> keys = new ArrayList<>();
+        keys.add(key);
+        keys.addAll(imageVariantService.renditionKeys(key));
+        blobDeletionQueue.enqueue(keys, key);
     }
 }
@@ -6,7 +6,10 @@ import com.spring.model.Product;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public interface AdminService {
@@ -16,6 +19,13 @@ public interface AdminService {
      */
     List<Product> fetchProducts();
 
+    /**
+     * Stream every product as newline-delimited JSON, chunk by chunk, so memory stays flat
+     * regardless of catalog size.
+     * @param out response body to write to
+     */
+    void exportProducts(OutputStream out) throws IOException;
+
     /**
      * Add a new product with multiple images.
      * @param dto ProductDto containing product details + multiple images
@@ -51,6 +61,13 @@ public interface AdminService {
 
     ResponseEntity<?> updateGalleryStatus(List<Gallery> galleries);
 
+    /**
+     * Set the active flag of many gallery images with at most two UPDATE statements.
+     * @param statuses gallery id to the wanted active flag
+     * @return ids whose flag actually changed
+     */
+    List<Long> updateGalleryStatuses(Map<Long, Boolean> statuses);
+
     void deleteGalleryImage(Long id);
 }
 
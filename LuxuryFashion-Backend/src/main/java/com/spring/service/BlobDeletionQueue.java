@@ -0,0 +1,163 @@
+package com.spring.service;
+
+import com.spring.model.PendingBlobDeletion;
+import com.spring.repo.BlobRefRepository;
+import com.spring.repo.PendingBlobDeletionRepository;
+import com.spring.storage.ObjectStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Persistent queue of stored objects to delete. Callers enqueue inside their own transaction and return
+ * at once; a scheduled worker drains the queue with batch deletes and retries failures with exponential
+ * backoff, so nothing is orphaned when the store is briefly unavailable.
+ */
+@Service
+public class BlobDeletionQueue {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final PendingBlobDeletionRepository pendingRepository;
+    private final BlobRefRepository blobRefRepository;
+    private final ObjectStore objectStore;
+    private final TransactionTemplate writeTransaction;
+    private final int batchSize;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public BlobDeletionQueue(PendingBlobDeletionRepository pendingRepository,
+                             BlobRefRepository blobRefRepository,
+                             ObjectStore objectStore,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${storage.deletion.batch-size:100}") int batchSize,
+                             @Value("${storage.deletion.base-backoff-ms:30000}") long baseBackoffMillis,
+                             @Value("${storage.deletion.max-backoff-ms:3600000}") long maxBackoffMillis) {
+        this.pendingRepository = pendingRepository;
+        this.blobRefRepository = blobRefRepository;
+        this.objectStore = objectStore;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+        this.baseBackoffMillis = Math.max(1, baseBackoffMillis);
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Record objects for deletion. Joins the caller's transaction, so the records commit or roll back
+     * together with whatever made the objects unused.
+     */
+    public void enqueue(Collection<String> keys) {
+        enqueue(keys, null);
+    }
+
+    /**
+     * Record an original and its renditions for deletion. Renditions carry no references of their own,
+     * so the drain keeps every one of these keys once {@code originalKey} is referenced again.
+     */
+    public void enqueue(Collection<String> keys, String originalKey) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<PendingBlobDeletion> pending = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            PendingBlobDeletion deletion = new PendingBlobDeletion();
+            deletion.setObjectKey(key);
+            deletion.setOriginalKey(originalKey);
+            deletion.setCreatedAt(now);
+            deletion.setNextAttemptAt(now);
+            pending.add(deletion);
+        }
+        writeTransaction.executeWithoutResult(status -> pendingRepository.saveAll(pending));
+    }
+
+    @Scheduled(fixedDelayString = "${storage.deletion.poll-ms:10000}")
+    public void drain() {
+        try {
+            int deleted = drainDue(System.currentTimeMillis());
+            if (deleted > 0) {
+                System.out.println("Deleted " + deleted + " stored objects");
+            }
+        } catch (Exception e) {
+            System.err.println("Blob deletion worker failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Work through every entry due at {@code now}, one batch delete per chunk.
+     * @return number of entries completed
+     */
+    int drainDue(long now) {
+        int completed = 0;
+        while (true) {
+            List<PendingBlobDeletion> due = pendingRepository.findDue(now, PageRequest.of(0, batchSize));
+            if (due.isEmpty()) {
+                return completed;
+            }
+            List<String> keys = new ArrayList<>(due.size());
+            for (PendingBlobDeletion deletion : due) {
+                // Uploaded again since it was queued: the same content-addressed key is in use once more
+                String referencedKey = deletion.getOriginalKey() != null ? deletion.getOriginalKey() : deletion.getObjectKey();
+                if (!blobRefRepository.existsById(referencedKey)) {
+                    keys.add(deletion.getObjectKey());
+                }
+            }
+
+            Map<String, String> failed;
+            try {
+                // Outside any transaction, no database lock is held during the storage round trip
+                failed = objectStore.batchDelete(keys);
+            } catch (Exception e) {
+                String message = String.valueOf(e.getMessage());
+                scheduleRetry(due, deletion -> message, now);
+                // Retried entries are not due again before now, so the loop moves on to the rest
+                continue;
+            }
+
+            // Only objects that are really gone leave the queue; the rest are retried with backoff
+            List<Long> done = new ArrayList<>(due.size());
+            List<PendingBlobDeletion> retry = new ArrayList<>();
+            for (PendingBlobDeletion deletion : due) {
+                if (failed.containsKey(deletion.getObjectKey())) {
+                    retry.add(deletion);
+                } else {
+                    done.add(deletion.getId());
+                }
+            }
+            if (!done.isEmpty()) {
+                writeTransaction.executeWithoutResult(status -> pendingRepository.deleteAllByIdInBatch(done));
+                completed += done.size();
+            }
+            if (!retry.isEmpty()) {
+                scheduleRetry(retry, deletion -> failed.get(deletion.getObjectKey()), now);
+            }
+        }
+    }
+
+    private void scheduleRetry(List<PendingBlobDeletion> failed, Function<PendingBlobDeletion, String> errorOf, long now) {
+        for (PendingBlobDeletion deletion : failed) {
+            String message = String.valueOf(errorOf.apply(deletion));
+            deletion.setAttempts(deletion.getAttempts() + 1);
+            deletion.setNextAttemptAt(now + backoff(deletion.getAttempts()));
+            deletion.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+        }
+        writeTransaction.executeWithoutResult(status -> pendingRepository.saveAll(failed));
+        System.err.println("Deleting " + failed.size() + " stored objects failed, will retry: "
+                + failed.get(0).getLastError());
+    }
+
+    // base, 2 x base, 4 x base ... capped at maxBackoffMillis
+    private long backoff(int attempts) {
+        int shift = Math.min(attempts - 1, 20);
+        return Math.min(maxBackoffMillis, baseBackoffMillis << shift);
+    }
+}
@@ -0,0 +1,39 @@
+package com.spring.service;
+
+import com.spring.repo.BlobRefRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Reference counts for stored objects shared through content addressing.
+ */
+@Service
+public class BlobReferenceService {
+
+    private final BlobRefRepository blobRefRepository;
+    private final TransactionTemplate writeTransaction;
+
+    public BlobReferenceService(BlobRefRepository blobRefRepository, PlatformTransactionManager transactionManager) {
+        this.blobRefRepository = blobRefRepository;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    public void acquire(String key) {
+        blobRefRepository.increment(key);
+    }
+
+    /**
+     * Drop one reference.
+     * @return true when nothing uses the object any more and the caller should delete it
+     */
+    public boolean release(String key) {
+        return Boolean.TRUE.equals(writeTransaction.execute(status -> {
+            if (blobRefRepository.decrement(key) == 0) {
+                // No row: stored before reference counting, its only owner is letting go
+                return !blobRefRepository.existsById(key);
+            }
+            return blobRefRepository.deleteIfUnreferenced(key) == 1;
+        }));
+    }
+}
@@ -0,0 +1,198 @@
+package com.spring.service;
+
+import com.spring.model.Product;
+import com.spring.repo.ProductRepository;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through in-memory copy of the active catalog.
+ * Loaded once from the database and then patched in place by admin writes,
+ * so shop reads only reach MySQL after an invalidation or once max age has passed.
+ */
+@Service
+public class CatalogCache {
+
+    private static final String ACTIVE_STATUS = "active";
+
+    private final ProductRepository productRepository;
+    // Published after the content changes, so a reader never pairs a new version with old content
+    private final ContentVersions contentVersions;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long maxAgeMillis;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong reloads = new AtomicLong();
+    private final List<CatalogListener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile Snapshot snapshot;
+
+    public CatalogCache(ProductRepository productRepository,
+                        ContentVersions contentVersions,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${catalog.cache.max-age-ms:300000}") long maxAgeMillis) {
+        this.productRepository = productRepository;
+        this.contentVersions = contentVersions;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    public void addListener(CatalogListener listener) {
+        listeners.add(listener);
+    }
+
+    // Load the catalog before the first shopper arrives so derived indexes are ready too
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            getActiveProducts();
+        } catch (Exception e) {
+            System.err.println("Catalog warm-up failed, will load on first request: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Active products in catalog order. The returned list and its products are shared, do not modify them.
+     */
+    public List<Product> getActiveProducts() {
+        return current().products();
+    }
+
+    public Product getActiveProduct(int productId) {
+        return current().byId().get(productId);
+    }
+
+    /**
+     * ETag of the active catalog, after reloading it if it has expired or was invalidated.
+     */
+    public String etag() {
+        current();
+        return contentVersions.catalogEtag();
+    }
+
+    /**
+     * Insert or replace a product after it was saved. Inactive products are dropped from the cache.
+     */
+    public synchronized void put(Product product) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            // The next read reloads and publishes
+            return;
+        }
+        Map<Integer, Product> byId = new LinkedHashMap<>(current.byId());
+        if (isActive(product)) {
+            Product copy = detachedCopy(product);
+            byId.put(copy.getProd_id(), copy);
+            snapshot = new Snapshot(byId, current.loadedAt());
+            listeners.forEach(listener -> listener.onUpsert(copy));
+            contentVersions.publishCatalog(snapshot.products());
+        } else if (byId.remove(product.getProd_id()) != null) {
+            snapshot = new Snapshot(byId, current.loadedAt());
+            listeners.forEach(listener -> listener.onRemove(product.getProd_id()));
+            contentVersions.publishCatalog(snapshot.products());
+        }
+    }
+
+    public synchronized void evict(int productId) {
+        Snapshot current = snapshot;
+        if (current != null && current.byId().containsKey(productId)) {
+            Map<Integer, Product> byId = new LinkedHashMap<>(current.byId());
+            byId.remove(productId);
+            snapshot = new Snapshot(byId, current.loadedAt());
+            listeners.forEach(listener -> listener.onRemove(productId));
+            contentVersions.publishCatalog(snapshot.products());
+        }
+    }
+
+    // The ETag stays until the reload, which every read, etag() included, does first
+    public synchronized void invalidate() {
+        snapshot = null;
+    }
+
+    public Map<String, Object> stats() {
+        Snapshot current = snapshot;
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", total == 0 ? 0.0 : (double) hitCount / total);
+        stats.put("reloads", reloads.get());
+        stats.put("size", current == null ? 0 : current.byId().size());
+        stats.put("ageMs", current == null ? null : System.currentTimeMillis() - current.loadedAt());
+        stats.put("maxAgeMs", maxAgeMillis);
+        return stats;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && !isExpired(current)) {
+            hits.incrementAndGet();
+            return current;
+        }
+        misses.incrementAndGet();
+        return reload();
+    }
+
+    private synchronized Snapshot reload() {
+        Snapshot current = snapshot;
+        if (current != null && !isExpired(current)) {
+            return current;
+        }
+        Map<Integer, Product> byId = readOnlyTransaction.execute(status -> {
+            Map<Integer, Product> loaded = new LinkedHashMap<>();
+            for (Product product : productRepository.findByProdStatus(ACTIVE_STATUS)) {
+                loaded.put(product.getProd_id(), detachedCopy(product));
+            }
+            return loaded;
+        });
+        Snapshot loaded = new Snapshot(byId, System.currentTimeMillis());
+        snapshot = loaded;
+        reloads.incrementAndGet();
+        // A reload may pick up rows changed outside this instance. When it finds the same content, the
+        // ETag and the derived indexes, which track every change made through this cache, stay as they are
+        if (contentVersions.publishCatalog(loaded.products())) {
+            listeners.forEach(listener -> listener.onReload(loaded.products()));
+        }
+        return loaded;
+    }
+
+    private boolean isExpired(Snapshot current) {
+        return maxAgeMillis > 0 && System.currentTimeMillis() - current.loadedAt() > maxAgeMillis;
+    }
+
+    private static boolean isActive(Product product) {
+        return ACTIVE_STATUS.equalsIgnoreCase(product.getProdStatus());
+    }
+
+    /**
+     * Copy of the entity with plain lists, safe to serve after the persistence context is gone.
+     */
+    static Product detachedCopy(Product source) {
+        Product copy = new Product();
+        BeanUtils.copyProperties(source, copy);
+        copy.setImagenames(source.getImagenames() == null ? null : new ArrayList<>(source.getImagenames()));
+        copy.setProd_images(source.getProd_images() == null ? null : new ArrayList<>(source.getProd_images()));
+        copy.setProd_image_srcset(source.getProd_image_srcset() == null ? null : new ArrayList<>(source.getProd_image_srcset()));
+        return copy;
+    }
+
+    private record Snapshot(Map<Integer, Product> byId, List<Product> products, long loadedAt) {
+        Snapshot(Map<Integer, Product> byId, long loadedAt) {
+            this(Collections.unmodifiableMap(byId), List.copyOf(byId.values()), loadedAt);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.spring.service;
+
+import com.spring.model.Product;
+
+import java.util.Collection;
+
+/**
+ * Receives changes to the active catalog held by {@link CatalogCache}.
+ * Products passed in are the cache's own copies and must not be modified.
+ */
+public interface CatalogListener {
+
+    /**
+     * The full active catalog was (re)loaded from the database.
+     */
+    void onReload(Collection<Product> products);
+
+    /**
+     * An active product was added or changed.
+     */
+    void onUpsert(Product product);
+
+    /**
+     * A product was deleted or is no longer active.
+     */
+    void onRemove(int productId);
+}
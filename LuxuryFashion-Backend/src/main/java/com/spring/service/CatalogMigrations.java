@@ -0,0 +1,181 @@
+package com.spring.service;
+
+import com.spring.model.Gallery;
+import com.spring.repo.GalleryRepository;
+import com.spring.repo.ProductRepository;
+import com.spring.storage.ObjectStore;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Idempotent data fixes for columns that ddl-auto=update adds empty to existing tables.
+ * Runs once at startup, before the catalog cache is warmed.
+ */
+@Component
+public class CatalogMigrations implements ApplicationRunner {
+
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectStore objectStore;
+    private final GalleryRepository galleryRepository;
+    private final GalleryImageIngestor galleryImageIngestor;
+    private final BlobReferenceService blobReferenceService;
+    private final TransactionTemplate writeTransaction;
+
+    public CatalogMigrations(ProductRepository productRepository, JdbcTemplate jdbcTemplate, ObjectStore objectStore,
+                             GalleryRepository galleryRepository, GalleryImageIngestor galleryImageIngestor,
+                             BlobReferenceService blobReferenceService, PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectStore = objectStore;
+        this.galleryRepository = galleryRepository;
+        this.galleryImageIngestor = galleryImageIngestor;
+        this.blobReferenceService = blobReferenceService;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            int updated = productRepository.backfillNormalizedKeys();
+            if (updated > 0) {
+                System.out.println("Backfilled normalized category/tag/brand keys for " + updated + " products");
+            }
+        } catch (Exception e) {
+            System.err.println("Normalized key backfill failed: " + e.getMessage());
+        }
+        try {
+            backfillTimestamp("created_at", "created_ts");
+            backfillTimestamp("updated_at", "updated_ts");
+            requireCreatedTimestamp();
+        } catch (Exception e) {
+            System.err.println("Timestamp backfill failed: " + e.getMessage());
+        }
+        try {
+            numberImages("product_imagenames", "imagenames", "imagenames_order");
+            numberImages("product_prod_images", "prod_images", "prod_images_order");
+            numberImages("product_prod_image_srcset", "prod_image_srcset", "prod_image_srcset_order");
+        } catch (Exception e) {
+            System.err.println("Image order backfill failed: " + e.getMessage());
+        }
+        try {
+            backfillBlobRefs();
+        } catch (Exception e) {
+            System.err.println("Blob reference backfill failed: " + e.getMessage());
+        }
+        try {
+            moveInlineGalleryImages();
+        } catch (Exception e) {
+            System.err.println("Moving inline gallery images failed: " + e.getMessage());
+        }
+    }
+
+    // Gallery rows saved before ingestion existed may still hold data: URLs
+    private void moveInlineGalleryImages() throws IOException {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT gallery_id FROM gallery WHERE image_url LIKE 'data:%'", Long.class);
+        for (Long id : ids) {
+            Gallery gallery = galleryRepository.findById(id).orElse(null);
+            if (gallery == null || !GalleryImageIngestor.isInline(gallery.getImageUrl())) {
+                continue;
+            }
+            gallery.setImageUrl(galleryImageIngestor.ingest(gallery.getImageUrl()));
+            galleryRepository.save(gallery);
+            blobReferenceService.acquire(objectStore.keyFromUrl(gallery.getImageUrl()));
+        }
+        if (!ids.isEmpty()) {
+            System.out.println("Moved " + ids.size() + " inline gallery images to storage");
+        }
+    }
+
+    // ddl-auto=update adds an order column to existing image rows as NULL or 0. Products whose positions
+    // are not exactly 0..n-1 are renumbered in the order the rows come back, the order they were shown in
+    private void numberImages(String table, String valueColumn, String orderColumn) {
+        List<Integer> productIds = jdbcTemplate.queryForList("SELECT product_prod_id FROM " + table
+                + " GROUP BY product_prod_id HAVING COUNT(DISTINCT " + orderColumn + ") <> COUNT(*)"
+                + " OR MIN(" + orderColumn + ") <> 0 OR MAX(" + orderColumn + ") <> COUNT(*) - 1", Integer.class);
+        for (Integer productId : productIds) {
+            writeTransaction.executeWithoutResult(status -> {
+                List<String> values = jdbcTemplate.queryForList(
+                        "SELECT " + valueColumn + " FROM " + table + " WHERE product_prod_id = ?", String.class, productId);
+                jdbcTemplate.update("DELETE FROM " + table + " WHERE product_prod_id = ?", productId);
+                List<Object[]> rows = new ArrayList<>(values.size());
+                for (int position = 0; position < values.size(); position++) {
+                    rows.add(new Object[]{productId, position, values.get(position)});
+                }
+                jdbcTemplate.batchUpdate("INSERT INTO " + table + " (product_prod_id, " + orderColumn + ", "
+                        + valueColumn + ") VALUES (?, ?, ?)", rows);
+            });
+        }
+        if (!productIds.isEmpty()) {
+            System.out.println("Numbered " + table + " rows for " + productIds.size() + " products");
+        }
+    }
+
+    // Counts the product and gallery images already in the store, once, when reference counting is first deployed
+    private void backfillBlobRefs() {
+        Integer tracked = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM blob_ref", Integer.class);
+        if (tracked != null && tracked > 0) {
+            return;
+        }
+        Map<String, Integer> counts = new HashMap<>();
+        for (String sql : List.of("SELECT prod_images FROM product_prod_images", "SELECT image_url FROM gallery")) {
+            jdbcTemplate.query(sql, row -> {
+                String key = objectStore.keyFromUrl(row.getString(1));
+                if (key != null) {
+                    counts.merge(key, 1, Integer::sum);
+                }
+            });
+        }
+        if (counts.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(counts.size());
+        counts.forEach((key, count) -> rows.add(new Object[]{key, count}));
+        jdbcTemplate.batchUpdate("INSERT INTO blob_ref (object_key, ref_count) VALUES (?, ?)", rows);
+        System.out.println("Backfilled reference counts for " + rows.size() + " stored images");
+    }
+
+    // Rows whose legacy created_at was empty or not a number sort last, then the column is made NOT NULL;
+    // ddl-auto=update never adds that constraint, the entity maps the column nullable
+    private void requireCreatedTimestamp() {
+        int defaulted = jdbcTemplate.update("UPDATE product SET created_ts = 0 WHERE created_ts IS NULL");
+        if (defaulted > 0) {
+            System.out.println("Defaulted created_ts to 0 for " + defaulted + " products without a creation date");
+        }
+        String nullable = jdbcTemplate.queryForObject(
+                "SELECT is_nullable FROM information_schema.columns "
+                        + "WHERE table_schema = DATABASE() AND table_name = 'product' AND column_name = 'created_ts'",
+                String.class);
+        if ("YES".equals(nullable)) {
+            jdbcTemplate.execute("ALTER TABLE product MODIFY created_ts BIGINT NOT NULL");
+        }
+    }
+
+    // Timestamps used to be millis stored as varchar; copy them into the BIGINT columns the entity now maps.
+    // 0 is treated as missing too: a NOT NULL column added by an earlier deploy was filled with 0 by MySQL
+    private void backfillTimestamp(String legacyColumn, String typedColumn) {
+        Integer legacyExists = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.columns "
+                        + "WHERE table_schema = DATABASE() AND table_name = 'product' AND column_name = ?",
+                Integer.class, legacyColumn);
+        if (legacyExists == null || legacyExists == 0) {
+            return;
+        }
+        int updated = jdbcTemplate.update("UPDATE product SET " + typedColumn + " = CAST(" + legacyColumn + " AS UNSIGNED) "
+                + "WHERE (" + typedColumn + " IS NULL OR " + typedColumn + " = 0) AND " + legacyColumn + " REGEXP '^[0-9]+$'");
+        if (updated > 0) {
+            System.out.println("Backfilled " + typedColumn + " for " + updated + " products");
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.spring.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The active catalog serialized to JSON once per catalog version, kept both plain and gzipped.
+ * The shop endpoint writes these bytes as they are, so a request costs neither Jackson nor compression.
+ */
+@Component
+public class CatalogSnapshot {
+
+    private final CatalogCache catalogCache;
+    private final ContentVersions contentVersions;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+
+    private volatile Encoded current;
+
+    public CatalogSnapshot(CatalogCache catalogCache, ContentVersions contentVersions, ObjectMapper objectMapper,
+                           @Value("${catalog.snapshot.enabled:true}") boolean enabled) {
+        this.catalogCache = catalogCache;
+        this.contentVersions = contentVersions;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+    }
+
+    public record Encoded(long version, String etag, byte[] identity, byte[] gzip) {
+
+        public String gzipEtag() {
+            return gzipEtag(etag);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Encoded get() {
+        // Reload an expired cache first, a reload that finds changes moves the version on
+        catalogCache.getActiveProducts();
+        ContentVersions.Version version = contentVersions.catalog();
+        Encoded encoded = current;
+        if (encoded != null && encoded.version() == version.number()) {
+            return encoded;
+        }
+        return rebuild(version);
+    }
+
+    /**
+     * Strong ETags are per representation, so the gzipped bytes get their own tag.
+     */
+    public static String gzipEtag(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    private synchronized Encoded rebuild(ContentVersions.Version version) {
+        Encoded encoded = current;
+        if (encoded != null && encoded.version() >= version.number()) {
+            return encoded;
+        }
+        try {
+            // Version is read before the products, at worst the bytes are newer than their label
+            byte[] identity = objectMapper.writeValueAsBytes(catalogCache.getActiveProducts());
+            Encoded rebuilt = new Encoded(version.number(), version.etag(), identity, gzip(identity));
+            current = rebuilt;
+            return rebuilt;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize catalog snapshot", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length / 4 + 64);
+        // Built once per catalog change, so spend the CPU on the best ratio
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer) {{ def.setLevel(Deflater.BEST_COMPRESSION); }}) {
+            out.write(data);
+        }
+        return buffer.toByteArray();
+    }
+}
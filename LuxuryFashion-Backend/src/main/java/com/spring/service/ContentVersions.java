@@ -0,0 +1,98 @@
+package com.spring.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Versions of the public catalog and gallery. They back the strong ETags of the shop endpoints, so a
+ * conditional request is answered by comparing two strings instead of loading anything. The ETag is a
+ * digest of the content itself: a reload that finds nothing new keeps it, and every instance serving the
+ * same content hands out the same tag.
+ */
+@Component
+public class ContentVersions {
+
+    // Until the first load, a tag no other instance or restart can share
+    private final String unloaded = "unloaded-" + Long.toString(System.currentTimeMillis(), 36);
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param number changes locally whenever the content does, for callers that rebuild derived data per version
+     */
+    public record Version(long number, String etag) {
+    }
+
+    private volatile Version catalog = new Version(0, etag("catalog", unloaded));
+    private volatile Version gallery = new Version(0, etag("gallery", unloaded));
+
+    public ContentVersions(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public Version catalog() {
+        return catalog;
+    }
+
+    /**
+     * Record the catalog content now being served.
+     * @return true when it differs from the content recorded before
+     */
+    public synchronized boolean publishCatalog(Object content) {
+        String etag = etag("catalog", digest(content));
+        Version current = catalog;
+        if (etag.equals(current.etag())) {
+            return false;
+        }
+        catalog = new Version(current.number() + 1, etag);
+        return true;
+    }
+
+    public long galleryVersion() {
+        return gallery.number();
+    }
+
+    /**
+     * Record the gallery content now being served.
+     * @return true when it differs from the content recorded before
+     */
+    public synchronized boolean publishGallery(Object content) {
+        String etag = etag("gallery", digest(content));
+        Version current = gallery;
+        if (etag.equals(current.etag())) {
+            return false;
+        }
+        gallery = new Version(current.number() + 1, etag);
+        return true;
+    }
+
+    public String catalogEtag() {
+        return catalog.etag();
+    }
+
+    public String galleryEtag() {
+        return gallery.etag();
+    }
+
+    private static String etag(String kind, String digest) {
+        return "\"" + kind + "-" + digest + "\"";
+    }
+
+    // The JSON the shop is served, so the digest changes exactly when a response body would
+    private String digest(Object content) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(content));
+            // 128 bits is plenty to tell two versions apart and keeps the header short
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize content for its ETag", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.spring.service;
+
+import com.spring.model.Gallery;
+import com.spring.repo.GalleryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory copy of the active gallery for the homepage hero. Invalidated by every admin gallery write
+ * and reloaded lazily, so the homepage only reads the large imageUrl column once per change.
+ */
+@Service
+public class GalleryCache {
+
+    private final GalleryRepository galleryRepository;
+    // Published after the content changes, so a reader never pairs a new version with old content
+    private final ContentVersions contentVersions;
+    private final long maxAgeMillis;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong reloads = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    public GalleryCache(GalleryRepository galleryRepository, ContentVersions contentVersions,
+                        @Value("${gallery.cache.max-age-ms:300000}") long maxAgeMillis) {
+        this.galleryRepository = galleryRepository;
+        this.contentVersions = contentVersions;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            getActiveGallery();
+        } catch (Exception e) {
+            System.err.println("Gallery warm-up failed, will load on first request: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Active gallery entries. The returned list and its entries are shared, do not modify them.
+     */
+    public List<Gallery> getActiveGallery() {
+        Snapshot current = snapshot;
+        if (current != null && !isExpired(current)) {
+            hits.incrementAndGet();
+            return current.galleries();
+        }
+        misses.incrementAndGet();
+        return reload().galleries();
+    }
+
+    /**
+     * ETag of the active gallery, after reloading it if it has expired or was invalidated.
+     */
+    public String etag() {
+        getActiveGallery();
+        return contentVersions.galleryEtag();
+    }
+
+    // The ETag stays until the reload, which every read, etag() included, does first
+    public synchronized void invalidate() {
+        snapshot = null;
+    }
+
+    public Map<String, Object> stats() {
+        Snapshot current = snapshot;
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", total == 0 ? 0.0 : (double) hitCount / total);
+        stats.put("reloads", reloads.get());
+        stats.put("size", current == null ? 0 : current.galleries().size());
+        stats.put("ageMs", current == null ? null : System.currentTimeMillis() - current.loadedAt());
+        stats.put("maxAgeMs", maxAgeMillis);
+        stats.put("version", contentVersions.galleryVersion());
+        return stats;
+    }
+
+    private synchronized Snapshot reload() {
+        Snapshot current = snapshot;
+        if (current != null && !isExpired(current)) {
+            return current;
+        }
+        Snapshot loaded = new Snapshot(List.copyOf(galleryRepository.findByActiveTrue()), System.currentTimeMillis());
+        snapshot = loaded;
+        // Unchanged content keeps its ETag, so returning visitors still get 304s
+        contentVersions.publishGallery(loaded.galleries());
+        reloads.incrementAndGet();
+        return loaded;
+    }
+
+    private boolean isExpired(Snapshot current) {
+        return maxAgeMillis > 0 && System.currentTimeMillis() - current.loadedAt() > maxAgeMillis;
+    }
+
+    private record Snapshot(List<Gallery> galleries, long loadedAt) {
+    }
+}
@@ -0,0 +1,144 @@
+package com.spring.service;
+
+import com.spring.storage.ContentAddressedStore;
+import com.spring.storage.ObjectStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Moves inline {@code data:} gallery images into the object store, so the gallery row keeps a short URL
+ * instead of kilobytes of base64 that every gallery read and response would carry.
+ */
+@Component
+public class GalleryImageIngestor {
+
+    private static final String GALLERY_PREFIX = "gallery/";
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/jpeg", ".jpg",
+            "image/png", ".png",
+            "image/gif", ".gif",
+            "image/webp", ".webp",
+            "image/avif", ".avif");
+
+    private final ContentAddressedStore contentAddressedStore;
+    private final ObjectStore objectStore;
+    private final long maxBytes;
+
+    public GalleryImageIngestor(ContentAddressedStore contentAddressedStore, ObjectStore objectStore,
+                                @Value("${gallery.inline-image.max-bytes:5242880}") long maxBytes) {
+        this.contentAddressedStore = contentAddressedStore;
+        this.objectStore = objectStore;
+        this.maxBytes = maxBytes;
+    }
+
+    public static boolean isInline(String imageUrl) {
+        return imageUrl != null && imageUrl.regionMatches(true, 0, "data:", 0, 5);
+    }
+
+    /**
+     * @return the stored object's URL for a base64 data URL, any other URL unchanged
+     * @throws IllegalArgumentException for a data URL that is not a base64 encoded image, or one whose
+     *         image is larger than the configured limit
+     */
+    public String ingest(String imageUrl) throws IOException {
+        if (!isInline(imageUrl)) {
+            return imageUrl;
+        }
+        int comma = imageUrl.indexOf(',');
+        if (comma < 0) {
+            throw new IllegalArgumentException("Malformed data URL");
+        }
+        // "data:image/png;base64"
+        String[] header = imageUrl.substring(5, comma).split(";");
+        String contentType = header[0].trim().toLowerCase(Locale.ROOT);
+        boolean base64 = header.length > 1 && "base64".equalsIgnoreCase(header[header.length - 1].trim());
+        if (!contentType.startsWith("image/") || !base64) {
+            throw new IllegalArgumentException("Gallery data URLs must be base64 encoded images");
+        }
+        // Every 4 base64 characters are at most 3 bytes; checked before anything is decoded
+        long decodedBytes = (imageUrl.length() - comma - 1) / 4L * 3;
+        if (decodedBytes > maxBytes) {
+            throw new IllegalArgumentException("Gallery images may be at most " + maxBytes + " bytes");
+        }
+        // Decoded while it is hashed and uploaded, so the image is never held in memory a second time
+        ContentAddressedStore.Stored stored = contentAddressedStore.store(GALLERY_PREFIX,
+                EXTENSIONS.get(contentType), ".img", contentType,
+                () -> new DecodingStream(Base64.getDecoder().wrap(new CharsStream(imageUrl, comma + 1))));
+        return objectStore.url(stored.key());
+    }
+
+    // Reads the characters of an ASCII string as bytes without copying it. Line breaks and spaces are
+    // dropped, so the strict decoder accepts wrapped base64 and still rejects anything else
+    private static final class CharsStream extends InputStream {
+
+        private final String text;
+        private int position;
+
+        CharsStream(String text, int from) {
+            this.text = text;
+            this.position = from;
+        }
+
+        @Override
+        public int read() {
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (!isWhitespace(c)) {
+                    // Anything outside Latin-1 becomes a byte the decoder rejects
+                    return c > 0xff ? '?' : c;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            int count = 0;
+            int c;
+            while (count < len && (c = read()) != -1) {
+                b[off + count++] = (byte) c;
+            }
+            return count == 0 ? -1 : count;
+        }
+
+        private static boolean isWhitespace(char c) {
+            return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+        }
+    }
+
+    // The source is in memory, so a read failure here is always bad base64 and the client's mistake
+    private static final class DecodingStream extends FilterInputStream {
+
+        DecodingStream(InputStream decoder) {
+            super(decoder);
+        }
+
+        @Override
+        public int read() {
+            try {
+                return super.read();
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Malformed base64 image data", e);
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            try {
+                return super.read(b, off, len);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Malformed base64 image data", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.spring.service;
+
+import com.spring.model.Product;
+import com.spring.repo.ProductRepository;
+import com.spring.storage.ObjectStore;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Width-bounded renditions of product photos for srcset. Resizing is CPU heavy, so it runs on a small
+ * background pool after the product is saved; until it finishes the product is served with originals only.
+ * The pool's queue is bounded: once it is full the uploading request resizes its own photos, which slows
+ * an upload burst down instead of letting pending work pile up without limit.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final float JPEG_QUALITY = 0.82f;
+
+    private final ObjectStore objectStore;
+    private final ProductRepository productRepository;
+    private final CatalogCache catalogCache;
+    private final TransactionTemplate writeTransaction;
+    private final int[] widths;
+    private final ThreadPoolExecutor resizeExecutor;
+
+    public ImageVariantService(ObjectStore objectStore,
+                               ProductRepository productRepository,
+                               CatalogCache catalogCache,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${product.image.variant-widths:320,640,1280}") int[] widths,
+                               @Value("${product.image.variant-threads:2}") int threads,
+                               @Value("${product.image.variant-queue-capacity:64}") int queueCapacity) {
+        this.objectStore = objectStore;
+        this.productRepository = productRepository;
+        this.catalogCache = catalogCache;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.widths = widths.clone();
+        Arrays.sort(this.widths);
+        int poolSize = Math.max(1, threads);
+        AtomicInteger threadIds = new AtomicInteger();
+        this.resizeExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variant-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Queue rendition generation for the product's images and store the resulting srcsets on it.
+     * Runs on the calling thread instead when the queue is full.
+     * @param imageUrls image URLs in display order, as stored in prod_images
+     */
+    public void generateAsync(int productId, List<String> imageUrls) {
+        if (imageUrls == null || imageUrls.isEmpty()) {
+            return;
+        }
+        List<String> urls = List.copyOf(imageUrls);
+        resizeExecutor.execute(() -> {
+            try {
+                List<String> srcsets = new ArrayList<>(urls.size());
+                for (String url : urls) {
+                    srcsets.add(renditions(url));
+                }
+                storeSrcsets(productId, urls, srcsets);
+            } catch (Exception e) {
+                System.err.println("Image variants failed for product " + productId + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Keys the renditions of an original would have; some may not exist for small or undecodable images.
+     */
+    public List<String> renditionKeys(String key) {
+        boolean png = isPng(key);
+        List<String> keys = new ArrayList<>(widths.length);
+        for (int width : widths) {
+            keys.add(variantKey(key, width, png));
+        }
+        return keys;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        resizeExecutor.shutdown();
+    }
+
+    // srcset for one image; an image ImageIO cannot decode (e.g. WebP) keeps just its original
+    private String renditions(String url) throws IOException {
+        String key = objectStore.keyFromUrl(url);
+        if (key == null) {
+            return url;
+        }
+        BufferedImage original;
+        try (InputStream in = objectStore.open(key)) {
+            original = ImageIO.read(in);
+        }
+        if (original == null) {
+            return url;
+        }
+
+        boolean png = isPng(key);
+        StringBuilder srcset = new StringBuilder();
+        for (int width : widths) {
+            if (width >= original.getWidth()) {
+                break;
+            }
+            String variantKey = variantKey(key, width, png);
+            // Originals are content addressed, so an existing rendition was made from the same bytes
+            if (!objectStore.exists(variantKey)) {
+                byte[] encoded = encode(resize(original, width, png), png);
+                objectStore.putImmutable(variantKey, new ByteArrayInputStream(encoded), png ? "image/png" : "image/jpeg");
+            }
+            srcset.append(objectStore.url(variantKey)).append(' ').append(width).append("w, ");
+        }
+        return srcset.append(url).append(' ').append(original.getWidth()).append('w').toString();
+    }
+
+    private void storeSrcsets(int productId, List<String> urls, List<String> srcsets) {
+        Product saved = writeTransaction.execute(status -> productRepository.findById((long) productId)
+                // Skip if the images were replaced meanwhile, the srcsets would not line up
+                .filter(product -> urls.equals(product.getProd_images()))
+                .map(product -> {
+                    product.setProd_image_srcset(new ArrayList<>(srcsets));
+                    // Copied while the session is open, this thread has no open-in-view to load lazy lists later
+                    return CatalogCache.detachedCopy(productRepository.save(product));
+                })
+                .orElse(null));
+        if (saved != null) {
+            catalogCache.put(saved);
+        }
+    }
+
+    private static boolean isPng(String key) {
+        return key.toLowerCase(Locale.ROOT).endsWith(".png");
+    }
+
+    static String variantKey(String key, int width, boolean png) {
+        int dot = key.lastIndexOf('.');
+        String base = dot > key.lastIndexOf('/') ? key.substring(0, dot) : key;
+        return base + "_w" + width + (png ? ".png" : ".jpg");
+    }
+
+    // Halves the image until one more halving would undershoot, then one bilinear step to the exact width
+    private static BufferedImage resize(BufferedImage source, int targetWidth, boolean keepAlpha) {
+        int type = keepAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        while (current.getWidth() != targetWidth) {
+            int width = Math.max(targetWidth, current.getWidth() / 2);
+            int height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    private static byte[] encode(BufferedImage image, boolean png) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (png) {
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream imageOut = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(imageOut);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,137 @@
+package com.spring.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs BCrypt on a small dedicated pool so a login or registration burst uses at most that many cores and
+ * leaves the Tomcat workers' CPU to the shop. The queue is bounded; once it is full new work is refused
+ * immediately instead of piling up, and callers answer 429.
+ */
+@Service
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor hashExecutor;
+
+    private final AtomicLong hashes = new AtomicLong();
+    private final AtomicLong hashNanos = new AtomicLong();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong rehashed = new AtomicLong();
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  @Value("${security.password-hashing.threads:0}") int threads,
+                                  @Value("${security.password-hashing.queue-capacity:32}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        // 0 means half the cores, so hashing can never take the whole machine
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadIds = new AtomicInteger();
+        this.hashExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * @throws RejectedExecutionException when the hashing queue is full
+     */
+    public String encode(String rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * @throws RejectedExecutionException when the hashing queue is full
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * New hash for a password that just matched, if its hash was made with a weaker cost than configured.
+     * Best effort: returns null when no upgrade is needed or the pool is busy, the next login tries again.
+     */
+    public String rehashIfNeeded(String rawPassword, String encodedPassword) {
+        try {
+            if (encodedPassword == null || !passwordEncoder.upgradeEncoding(encodedPassword)) {
+                return null;
+            }
+            String upgraded = encode(rawPassword);
+            rehashed.incrementAndGet();
+            return upgraded;
+        } catch (RejectedExecutionException | IllegalArgumentException e) {
+            // IllegalArgumentException: the stored value is not a BCrypt hash at all
+            return null;
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long count = hashes.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("poolSize", hashExecutor.getMaximumPoolSize());
+        stats.put("active", hashExecutor.getActiveCount());
+        stats.put("queueDepth", hashExecutor.getQueue().size());
+        stats.put("queueCapacity", hashExecutor.getQueue().size() + hashExecutor.getQueue().remainingCapacity());
+        stats.put("hashes", count);
+        stats.put("rejected", rejected.get());
+        stats.put("rehashed", rehashed.get());
+        stats.put("avgHashMs", count == 0 ? 0.0 : hashNanos.get() / 1e6 / count);
+        stats.put("maxHashMs", maxHashNanos.get() / 1e6);
+        stats.put("avgQueueWaitMs", count == 0 ? 0.0 : waitNanos.get() / 1e6 / count);
+        return stats;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hashExecutor.shutdown();
+    }
+
+    // The calling request thread only waits here; the CPU work happens on the hashing pool
+    private <T> T run(Callable<T> hash) {
+        long submitted = System.nanoTime();
+        Future<T> result;
+        try {
+            result = hashExecutor.submit(() -> {
+                long started = System.nanoTime();
+                try {
+                    return hash.call();
+                } finally {
+                    long took = System.nanoTime() - started;
+                    hashes.incrementAndGet();
+                    hashNanos.addAndGet(took);
+                    maxHashNanos.accumulateAndGet(took, Math::max);
+                    waitNanos.addAndGet(started - submitted);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw e;
+        }
+
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.spring.service;
+
+import com.spring.model.Product;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Bitmap facet engine over the active catalog. Each product gets a dense slot, each facet value a
+ * {@link BitSet} of slots, and each price a bitset in a sorted map, so any filter combination with live
+ * counts is a handful of bitwise operations instead of a query per facet.
+ */
+@Component
+public class ProductFacetIndex implements CatalogListener {
+
+    public static final String GENDER = "gender";
+    public static final String CATEGORY = "category";
+    public static final String TAG = "tag";
+    public static final String BRAND = "brand";
+
+    private static final Map<String, Function<Product, String>> FACETS = new LinkedHashMap<>();
+
+    static {
+        FACETS.put(GENDER, Product::getProd_gender);
+        FACETS.put(CATEGORY, Product::getProd_category);
+        FACETS.put(TAG, Product::getProd_tag);
+        FACETS.put(BRAND, Product::getProd_brand);
+    }
+
+    private final CatalogCache catalogCache;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Slots follow catalog order; a removed product leaves an empty slot until the next reload
+    private final List<Product> slots = new ArrayList<>();
+    private final Map<Integer, Integer> slotById = new HashMap<>();
+    private final BitSet live = new BitSet();
+    // facet -> normalized value -> slots
+    private final Map<String, Map<String, BitSet>> facets = new HashMap<>();
+    // price -> slots
+    private final NavigableMap<Integer, BitSet> slotsByPrice = new TreeMap<>();
+
+    public ProductFacetIndex(CatalogCache catalogCache) {
+        this.catalogCache = catalogCache;
+        FACETS.keySet().forEach(facet -> facets.put(facet, new HashMap<>()));
+        catalogCache.addListener(this);
+    }
+
+    public record Result(List<Product> products, int total, Map<String, Map<String, Integer>> counts) {
+    }
+
+    /**
+     * Values within one facet are OR-ed, different facets and the price range are AND-ed.
+     * Counts for a facet apply every other filter, so the sidebar shows what each option would return.
+     * @param selected facet name to selected values, missing or empty means no filter on that facet
+     */
+    public Result query(Map<String, ? extends Collection<String>> selected, Integer minPrice, Integer maxPrice) {
+        // Touching the cache first reloads it (and so this index) when it has expired
+        catalogCache.getActiveProducts();
+        lock.readLock().lock();
+        try {
+            BitSet priceFilter = priceRange(minPrice, maxPrice);
+            Map<String, BitSet> facetFilters = new HashMap<>();
+            for (String facet : FACETS.keySet()) {
+                Collection<String> values = selected.get(facet);
+                if (values != null && !values.isEmpty()) {
+                    facetFilters.put(facet, anyOf(facet, values));
+                }
+            }
+
+            BitSet matches = (BitSet) priceFilter.clone();
+            facetFilters.values().forEach(matches::and);
+
+            Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+            for (String facet : FACETS.keySet()) {
+                BitSet others = (BitSet) priceFilter.clone();
+                facetFilters.forEach((name, filter) -> {
+                    if (!name.equals(facet)) {
+                        others.and(filter);
+                    }
+                });
+                Map<String, Integer> facetCounts = new TreeMap<>();
+                facets.get(facet).forEach((value, valueSlots) -> {
+                    int count = countIntersection(others, valueSlots);
+                    if (count > 0) {
+                        facetCounts.put(value, count);
+                    }
+                });
+                counts.put(facet, facetCounts);
+            }
+
+            List<Product> products = new ArrayList<>(matches.cardinality());
+            for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+                products.add(slots.get(slot));
+            }
+            return new Result(products, products.size(), counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Full rebuild, which also compacts the slots left empty by removals
+    @Override
+    public void onReload(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            slots.clear();
+            slotById.clear();
+            live.clear();
+            facets.values().forEach(Map::clear);
+            slotsByPrice.clear();
+            for (Product product : products) {
+                addToNewSlot(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Only the changed product's bits move; it keeps its slot, like its position in the catalog
+    @Override
+    public void onUpsert(Product product) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.get(product.getProd_id());
+            if (slot == null) {
+                addToNewSlot(product);
+            } else {
+                clearSlot(slot);
+                slots.set(slot, product);
+                indexSlot(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onRemove(int productId) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.remove(productId);
+            if (slot != null) {
+                clearSlot(slot);
+                slots.set(slot, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static int countIntersection(BitSet filter, BitSet slots) {
+        BitSet intersection = (BitSet) slots.clone();
+        intersection.and(filter);
+        return intersection.cardinality();
+    }
+
+    private void addToNewSlot(Product product) {
+        int slot = slots.size();
+        slots.add(product);
+        slotById.put(product.getProd_id(), slot);
+        indexSlot(slot);
+    }
+
+    private void indexSlot(int slot) {
+        Product product = slots.get(slot);
+        live.set(slot);
+        for (Map.Entry<String, Function<Product, String>> facet : FACETS.entrySet()) {
+            String value = normalize(facet.getValue().apply(product));
+            if (!value.isEmpty()) {
+                facets.get(facet.getKey()).computeIfAbsent(value, v -> new BitSet()).set(slot);
+            }
+        }
+        slotsByPrice.computeIfAbsent(product.getProd_price(), price -> new BitSet()).set(slot);
+    }
+
+    // Undo indexSlot for the product currently in the slot; values left without products disappear
+    private void clearSlot(int slot) {
+        Product product = slots.get(slot);
+        live.clear(slot);
+        for (Map.Entry<String, Function<Product, String>> facet : FACETS.entrySet()) {
+            clearBit(facets.get(facet.getKey()), normalize(facet.getValue().apply(product)), slot);
+        }
+        clearBit(slotsByPrice, product.getProd_price(), slot);
+    }
+
+    private static <K> void clearBit(Map<K, BitSet> bitsets, K key, int slot) {
+        BitSet bits = bitsets.get(key);
+        if (bits != null) {
+            bits.clear(slot);
+            if (bits.isEmpty()) {
+                bitsets.remove(key);
+            }
+        }
+    }
+
+    private BitSet anyOf(String facet, Collection<String> values) {
+        BitSet union = new BitSet(slots.size());
+        for (String value : values) {
+            BitSet valueSlots = facets.get(facet).get(normalize(value));
+            if (valueSlots != null) {
+                union.or(valueSlots);
+            }
+        }
+        return union;
+    }
+
+    private BitSet priceRange(Integer minPrice, Integer maxPrice) {
+        if (minPrice == null && maxPrice == null) {
+            return (BitSet) live.clone();
+        }
+        int from = minPrice == null ? Integer.MIN_VALUE : minPrice;
+        int to = maxPrice == null ? Integer.MAX_VALUE : maxPrice;
+        BitSet range = new BitSet(slots.size());
+        if (from <= to) {
+            slotsByPrice.subMap(from, true, to, true).values().forEach(range::or);
+        }
+        return range;
+    }
+}
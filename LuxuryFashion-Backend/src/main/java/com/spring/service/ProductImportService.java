@@ -0,0 +1,421 @@
+package com.spring.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.dto.ImportReport;
+import com.spring.dto.ProductImportRow;
+import com.spring.model.Product;
+import com.spring.storage.ObjectStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.*;
+
+/**
+ * Bulk product load from CSV or NDJSON. Rows are parsed one at a time while the body is read,
+ * validated, and written with plain JDBC batches: Product ids are IDENTITY, which rules out Hibernate
+ * insert batching, but a JDBC batch still returns every generated id for the image rows.
+ * Each batch commits on its own, so a bad batch does not undo the ones before it.
+ */
+@Service
+public class ProductImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int MAX_TEXT_LENGTH = 255;
+    private static final String DEFAULT_STATUS = "active";
+
+    private static final String PRODUCT_INSERT = "INSERT INTO product (prod_name, prod_description, prod_price, "
+            + "selling_price, prod_quantity, prod_category, prod_category_key, prod_tag, prod_tag_key, prod_gender, "
+            + "prod_status, prod_brand, prod_brand_key, badge, rating, created_ts, updated_ts) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String IMAGENAMES_INSERT = "INSERT INTO product_imagenames "
+            + "(product_prod_id, imagenames_order, imagenames) VALUES (?, ?, ?)";
+    private static final String PROD_IMAGES_INSERT = "INSERT INTO product_prod_images "
+            + "(product_prod_id, prod_images_order, prod_images) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate batchTransaction;
+    private final ObjectMapper objectMapper;
+    private final CatalogCache catalogCache;
+    private final ObjectStore objectStore;
+    private final BlobReferenceService blobReferenceService;
+    private final int batchSize;
+
+    public ProductImportService(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                CatalogCache catalogCache,
+                                ObjectStore objectStore,
+                                BlobReferenceService blobReferenceService,
+                                @Value("${product.import.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.catalogCache = catalogCache;
+        this.objectStore = objectStore;
+        this.blobReferenceService = blobReferenceService;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * @param csv true for CSV with a header row, false for NDJSON, one product object per line
+     * @throws IllegalArgumentException when the CSV header lacks required columns
+     */
+    public ImportReport importProducts(InputStream in, boolean csv) throws IOException {
+        long start = System.currentTimeMillis();
+        ImportReport report = new ImportReport();
+        List<PendingRow> batch = new ArrayList<>(batchSize);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            LineSource source = new LineSource(reader);
+            Map<String, Integer> header = null;
+            String line;
+            while ((line = source.next()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                int lineNumber = source.lineNumber();
+                if (csv && header == null) {
+                    header = parseHeader(readCsvRecord(line, source));
+                    continue;
+                }
+                report.setReceived(report.getReceived() + 1);
+                ProductImportRow row;
+                try {
+                    row = csv ? fromCsv(header, readCsvRecord(line, source))
+                            : objectMapper.readValue(line, ProductImportRow.class);
+                } catch (JsonProcessingException e) {
+                    reject(report, lineNumber, "unreadable row: " + e.getOriginalMessage());
+                    continue;
+                } catch (IllegalArgumentException e) {
+                    reject(report, lineNumber, e.getMessage());
+                    continue;
+                }
+
+                String problem = validate(row);
+                if (problem != null) {
+                    reject(report, lineNumber, problem);
+                    continue;
+                }
+                batch.add(new PendingRow(lineNumber, row));
+                if (batch.size() >= batchSize) {
+                    flush(batch, report);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                flush(batch, report);
+            }
+        } finally {
+            // Batches already committed stay in even if the upload broke off
+            if (report.getInserted() > 0) {
+                catalogCache.invalidate();
+            }
+            report.setElapsedMs(System.currentTimeMillis() - start);
+        }
+        return report;
+    }
+
+    private void flush(List<PendingRow> batch, ImportReport report) {
+        report.setBatches(report.getBatches() + 1);
+        try {
+            batchTransaction.executeWithoutResult(status -> {
+                jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                    insertBatch(connection, batch);
+                    return null;
+                });
+                // Images already in our store gain a reference, so deleting another product keeps them
+                for (PendingRow pending : batch) {
+                    if (pending.row().getImages() != null) {
+                        for (String url : pending.row().getImages()) {
+                            String key = objectStore.keyFromUrl(url);
+                            if (key != null) {
+                                blobReferenceService.acquire(key);
+                            }
+                        }
+                    }
+                }
+            });
+            report.setInserted(report.getInserted() + batch.size());
+        } catch (RuntimeException e) {
+            report.setFailed(report.getFailed() + batch.size());
+            addError(report, "lines " + batch.get(0).lineNumber() + "-" + batch.get(batch.size() - 1).lineNumber()
+                    + ": batch rolled back: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            System.err.println("Product import batch failed: " + e.getMessage());
+        }
+    }
+
+    private static void insertBatch(Connection connection, List<PendingRow> batch) throws SQLException {
+        long now = System.currentTimeMillis();
+        int[] ids = new int[batch.size()];
+        try (PreparedStatement products = connection.prepareStatement(PRODUCT_INSERT, Statement.RETURN_GENERATED_KEYS)) {
+            for (PendingRow pending : batch) {
+                ProductImportRow row = pending.row();
+                products.setString(1, row.getProd_name().trim());
+                products.setString(2, row.getProd_description());
+                products.setInt(3, row.getProd_price());
+                products.setInt(4, row.getSelling_price() == null ? row.getProd_price() : row.getSelling_price());
+                products.setInt(5, row.getProd_quantity() == null ? 0 : row.getProd_quantity());
+                products.setString(6, row.getProd_category());
+                products.setString(7, Product.normalizeKey(row.getProd_category()));
+                products.setString(8, row.getProd_tag());
+                products.setString(9, Product.normalizeKey(row.getProd_tag()));
+                products.setString(10, row.getProd_gender());
+                products.setString(11, isBlank(row.getProdStatus()) ? DEFAULT_STATUS : row.getProdStatus().trim());
+                products.setString(12, row.getProd_brand());
+                products.setString(13, Product.normalizeKey(row.getProd_brand()));
+                products.setString(14, row.getBadge());
+                products.setObject(15, row.getRating(), Types.DOUBLE);
+                products.setLong(16, now);
+                products.setLong(17, now);
+                products.addBatch();
+            }
+            products.executeBatch();
+            try (ResultSet keys = products.getGeneratedKeys()) {
+                int count = 0;
+                while (keys.next() && count < ids.length) {
+                    ids[count++] = keys.getInt(1);
+                }
+                if (count != ids.length) {
+                    throw new SQLException("Expected " + ids.length + " generated ids, got " + count);
+                }
+            }
+        }
+
+        // addProduct stores the same URLs in both collections
+        try (PreparedStatement imagenames = connection.prepareStatement(IMAGENAMES_INSERT);
+             PreparedStatement prodImages = connection.prepareStatement(PROD_IMAGES_INSERT)) {
+            boolean anyImages = false;
+            for (int i = 0; i < batch.size(); i++) {
+                List<String> images = batch.get(i).row().getImages();
+                if (images == null) {
+                    continue;
+                }
+                for (int position = 0; position < images.size(); position++) {
+                    String url = images.get(position);
+                    imagenames.setInt(1, ids[i]);
+                    imagenames.setInt(2, position);
+                    imagenames.setString(3, url);
+                    imagenames.addBatch();
+                    prodImages.setInt(1, ids[i]);
+                    prodImages.setInt(2, position);
+                    prodImages.setString(3, url);
+                    prodImages.addBatch();
+                    anyImages = true;
+                }
+            }
+            if (anyImages) {
+                imagenames.executeBatch();
+                prodImages.executeBatch();
+            }
+        }
+    }
+
+    private static String validate(ProductImportRow row) {
+        if (isBlank(row.getProd_name())) {
+            return "prod_name is required";
+        }
+        if (row.getProd_price() == null || row.getProd_price() < 0) {
+            return "prod_price is required and must not be negative";
+        }
+        if (row.getSelling_price() != null && row.getSelling_price() < 0) {
+            return "selling_price must not be negative";
+        }
+        if (row.getProd_quantity() != null && row.getProd_quantity() < 0) {
+            return "prod_quantity must not be negative";
+        }
+        if (row.getRating() != null && (row.getRating() < 0 || row.getRating() > 5)) {
+            return "rating must be between 0 and 5";
+        }
+        Map<String, String> texts = new LinkedHashMap<>();
+        texts.put("prod_name", row.getProd_name());
+        texts.put("prod_description", row.getProd_description());
+        texts.put("prod_category", row.getProd_category());
+        texts.put("prod_tag", row.getProd_tag());
+        texts.put("prod_gender", row.getProd_gender());
+        texts.put("prodStatus", row.getProdStatus());
+        texts.put("prod_brand", row.getProd_brand());
+        texts.put("badge", row.getBadge());
+        for (Map.Entry<String, String> text : texts.entrySet()) {
+            if (text.getValue() != null && text.getValue().length() > MAX_TEXT_LENGTH) {
+                return text.getKey() + " is longer than " + MAX_TEXT_LENGTH + " characters";
+            }
+        }
+        if (row.getImages() != null) {
+            for (String url : row.getImages()) {
+                if (isBlank(url) || url.length() > MAX_TEXT_LENGTH) {
+                    return "image URLs must be non-empty and at most " + MAX_TEXT_LENGTH + " characters";
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void reject(ImportReport report, int lineNumber, String reason) {
+        report.setRejected(report.getRejected() + 1);
+        addError(report, "line " + lineNumber + ": " + reason);
+    }
+
+    private static void addError(ImportReport report, String error) {
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            report.getErrors().add(error);
+        }
+    }
+
+    private static Map<String, Integer> parseHeader(List<String> fields) {
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            // Spreadsheet exports often start with a byte order mark
+            String name = fields.get(i).replace("\uFEFF", "").trim();
+            header.put(name, i);
+        }
+        if (!header.containsKey("prod_name") || !header.containsKey("prod_price")) {
+            throw new IllegalArgumentException("CSV header must name at least prod_name and prod_price");
+        }
+        return header;
+    }
+
+    private static ProductImportRow fromCsv(Map<String, Integer> header, List<String> fields) {
+        ProductImportRow row = new ProductImportRow();
+        row.setProd_name(text(header, fields, "prod_name"));
+        row.setProd_description(text(header, fields, "prod_description"));
+        row.setProd_price(integer(header, fields, "prod_price"));
+        row.setSelling_price(integer(header, fields, "selling_price"));
+        row.setProd_quantity(integer(header, fields, "prod_quantity"));
+        row.setProd_category(text(header, fields, "prod_category"));
+        row.setProd_tag(text(header, fields, "prod_tag"));
+        row.setProd_gender(text(header, fields, "prod_gender"));
+        row.setProdStatus(text(header, fields, "prodStatus"));
+        row.setProd_brand(text(header, fields, "prod_brand"));
+        row.setBadge(text(header, fields, "badge"));
+        String rating = text(header, fields, "rating");
+        try {
+            row.setRating(rating == null ? null : Double.parseDouble(rating));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("rating is not a number: " + rating);
+        }
+        String images = text(header, fields, "images");
+        if (images != null) {
+            List<String> urls = new ArrayList<>();
+            for (String url : images.split("\\|")) {
+                if (!url.isBlank()) {
+                    urls.add(url.trim());
+                }
+            }
+            row.setImages(urls);
+        }
+        return row;
+    }
+
+    private static String text(Map<String, Integer> header, List<String> fields, String column) {
+        Integer index = header.get(column);
+        if (index == null || index >= fields.size() || fields.get(index).isEmpty()) {
+            return null;
+        }
+        return fields.get(index);
+    }
+
+    private static Integer integer(Map<String, Integer> header, List<String> fields, String column) {
+        String value = text(header, fields, column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a whole number: " + value);
+        }
+    }
+
+    /**
+     * RFC 4180 record: comma separated, fields optionally quoted, "" is a quote inside a quoted field.
+     * A quoted field may span lines, the extra lines are pulled from the source.
+     */
+    private static List<String> readCsvRecord(String line, LineSource source) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        String current = line;
+        int i = 0;
+        while (true) {
+            if (i == current.length()) {
+                if (!quoted) {
+                    break;
+                }
+                String more = source.next();
+                if (more == null) {
+                    throw new IllegalArgumentException("unterminated quoted field");
+                }
+                field.append('\n');
+                current = more;
+                i = 0;
+                continue;
+            }
+            char c = current.charAt(i++);
+            if (quoted) {
+                if (c == '"') {
+                    if (i < current.length() && current.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private record PendingRow(int lineNumber, ProductImportRow row) {
+    }
+
+    private static final class LineSource {
+        private final BufferedReader reader;
+        private int lineNumber;
+
+        LineSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        String next() throws IOException {
+            String line = reader.readLine();
+            if (line != null) {
+                lineNumber++;
+            }
+            return line;
+        }
+
+        int lineNumber() {
+            return lineNumber;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.spring.service;
+
+import com.spring.model.Product;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over the text fields of active products, ranked with BM25.
+ * Kept in step with the catalog through {@link CatalogListener}, so searches never touch MySQL.
+ */
+@Component
+public class ProductSearchIndex implements CatalogListener {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Field boosts: a hit in the name outranks one buried in the description
+    private static final double NAME_WEIGHT = 3.0;
+    private static final double BRAND_WEIGHT = 2.0;
+    private static final double CATEGORY_WEIGHT = 1.5;
+    private static final double TAG_WEIGHT = 1.5;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (product id -> weighted term frequency)
+    private final Map<String, Map<Integer, Double>> postings = new HashMap<>();
+    // product id -> weighted document length, also the set of indexed documents
+    private final Map<Integer, Double> documentLengths = new HashMap<>();
+    // product id -> distinct terms, needed to remove a document's postings
+    private final Map<Integer, Set<String>> documentTerms = new HashMap<>();
+    private double totalLength;
+
+    public ProductSearchIndex(CatalogCache catalogCache) {
+        catalogCache.addListener(this);
+    }
+
+    public record Hit(int productId, double score) {
+    }
+
+    /**
+     * Rank active products against the query. Every query term adds to the score, documents matching
+     * more terms or rarer terms come first.
+     */
+    public List<Hit> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int documentCount = documentLengths.size();
+            if (documentCount == 0) {
+                return List.of();
+            }
+            double averageLength = totalLength / documentCount;
+
+            Map<Integer, Double> scores = new HashMap<>();
+            for (String term : new LinkedHashSet<>(terms)) {
+                Map<Integer, Double> postingList = postings.get(term);
+                if (postingList == null) {
+                    continue;
+                }
+                int documentFrequency = postingList.size();
+                double idf = Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+                for (Map.Entry<Integer, Double> posting : postingList.entrySet()) {
+                    double tf = posting.getValue();
+                    double norm = K1 * (1 - B + B * documentLengths.get(posting.getKey()) / averageLength);
+                    scores.merge(posting.getKey(), idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                }
+            }
+            return topHits(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentLengths.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onReload(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documentLengths.clear();
+            documentTerms.clear();
+            totalLength = 0;
+            for (Product product : products) {
+                addDocument(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onUpsert(Product product) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(product.getProd_id());
+            addDocument(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onRemove(int productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Lowercased runs of letters and digits, the same rules for documents and queries.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private void addDocument(Product product) {
+        Map<String, Double> frequencies = new HashMap<>();
+        double length = 0;
+        length += addField(frequencies, product.getProd_name(), NAME_WEIGHT);
+        length += addField(frequencies, product.getProd_brand(), BRAND_WEIGHT);
+        length += addField(frequencies, product.getProd_category(), CATEGORY_WEIGHT);
+        length += addField(frequencies, product.getProd_tag(), TAG_WEIGHT);
+        length += addField(frequencies, product.getProd_description(), DESCRIPTION_WEIGHT);
+
+        int productId = product.getProd_id();
+        for (Map.Entry<String, Double> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new HashMap<>()).put(productId, entry.getValue());
+        }
+        documentTerms.put(productId, frequencies.keySet());
+        documentLengths.put(productId, length);
+        totalLength += length;
+    }
+
+    private static double addField(Map<String, Double> frequencies, String text, double weight) {
+        List<String> tokens = tokenize(text);
+        for (String token : tokens) {
+            frequencies.merge(token, weight, Double::sum);
+        }
+        return tokens.size() * weight;
+    }
+
+    private void removeDocument(int productId) {
+        Double length = documentLengths.remove(productId);
+        if (length == null) {
+            return;
+        }
+        totalLength -= length;
+        for (String term : documentTerms.remove(productId)) {
+            Map<Integer, Double> postingList = postings.get(term);
+            postingList.remove(productId);
+            if (postingList.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static List<Hit> topHits(Map<Integer, Double> scores, int limit) {
+        // Min-heap of the best `limit` hits, ties broken by lower product id
+        Comparator<Hit> ranking = Comparator.comparingDouble(Hit::score)
+                .thenComparing(Hit::productId, Comparator.reverseOrder());
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, ranking);
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            best.add(new Hit(entry.getKey(), entry.getValue()));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(ranking.reversed());
+        return hits;
+    }
+}
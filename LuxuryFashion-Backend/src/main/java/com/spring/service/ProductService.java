@@ -1,14 +1,19 @@
 package com.spring.service;
 
+import com.spring.dto.ProductCardDto;
+import com.spring.dto.ProductPageDto;
 import com.spring.model.Gallery;
 import com.spring.model.Product;
 import com.spring.repo.GalleryRepository;
 import com.spring.repo.ProductRepository;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -17,6 +22,9 @@ import java.util.*;
 @Service
 
 public class ProductService {
+    private static final int DEFAULT_PAGE_SIZE = 24;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
     @Value("${product.picture.path}")
     private String productPicturePath;
 
@@ -24,30 +32,147 @@ public class ProductService {
 
     private final  ProductRepository productRepository;
     private final GalleryRepository galleryRepository;
-    public ProductService(ProductRepository productRepository, GalleryRepository galleryRepository) {
+    private final CatalogCache catalogCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final GalleryCache galleryCache;
+    public ProductService(ProductRepository productRepository, GalleryRepository galleryRepository,
+                          CatalogCache catalogCache, ProductSearchIndex productSearchIndex, GalleryCache galleryCache) {
         this.productRepository = productRepository;
         this.galleryRepository = galleryRepository;
+        this.catalogCache = catalogCache;
+        this.productSearchIndex = productSearchIndex;
+        this.galleryCache = galleryCache;
     }
 
     public List<Product> fetchAllProducts() {
-        List<Product> products = productRepository.findByProdStatus("active");
+        // Served from memory, the cache only reloads from the DB after an admin write or max age
+        return catalogCache.getActiveProducts();
+    }
+
+    /**
+     * Full-text search over name, description, category, tag and brand of active products, best match first.
+     */
+    public List<Product> searchProducts(String query, Integer limit) {
+        int maxResults = limit == null ? DEFAULT_SEARCH_LIMIT : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Touching the cache first reloads it (and so the index) when it has expired
+        catalogCache.getActiveProducts();
 
-        for (Product product : products) {
-            if (product.getProd_images() != null && !product.getProd_images().isEmpty()) {
-                // Use the public URLs directly for frontend
-                List<String> imageUrls = new ArrayList<>(product.getProd_images());
-                product.setProd_images(imageUrls);
+        List<Product> results = new ArrayList<>();
+        for (ProductSearchIndex.Hit hit : productSearchIndex.search(query, maxResults)) {
+            Product product = catalogCache.getActiveProduct(hit.productId());
+            if (product != null) {
+                results.add(product);
             }
         }
+        return results;
+    }
+
+    /**
+     * One page of the active catalog using keyset pagination, so later pages cost the same as the first.
+     * @param sort one of id, price, price_desc, newest
+     * @param cursor nextCursor of the previous page, null for the first page
+     * @param size page size, capped at MAX_PAGE_SIZE
+     */
+    public ProductPageDto fetchProductPage(String sort, String cursor, Integer size) {
+        String sortKey = sort == null || sort.isBlank() ? "id" : sort.toLowerCase();
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        String[] position = decodeCursor(sortKey, cursor);
+
+        // Ask for one extra row to know whether another page follows
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<ProductCardDto> rows = switch (sortKey) {
+            case "id" -> productRepository.findCardsAfterId("active",
+                    position == null ? 0 : Integer.parseInt(position[1]), limit);
+            case "price" -> productRepository.findCardsByPriceAsc("active",
+                    position == null ? Integer.MIN_VALUE : Integer.parseInt(position[0]),
+                    position == null ? 0 : Integer.parseInt(position[1]), limit);
+            case "price_desc" -> productRepository.findCardsByPriceDesc("active",
+                    position == null ? Integer.MAX_VALUE : Integer.parseInt(position[0]),
+                    position == null ? Integer.MAX_VALUE : Integer.parseInt(position[1]), limit);
+            case "newest" -> productRepository.findCardsByNewest("active",
+                    position == null ? Long.MAX_VALUE : Long.parseLong(position[0]),
+                    position == null ? Integer.MAX_VALUE : Integer.parseInt(position[1]), limit);
+            default -> throw new IllegalArgumentException("Unsupported sort: " + sort);
+        };
+
+        boolean hasMore = rows.size() > pageSize;
+        List<ProductCardDto> items = hasMore ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+        attachThumbnails(items);
+
+        String nextCursor = null;
+        if (hasMore) {
+            ProductCardDto last = items.get(items.size() - 1);
+            String value = switch (sortKey) {
+                case "price", "price_desc" -> String.valueOf(last.getProd_price());
+                case "newest" -> String.valueOf(last.getCreatedAt());
+                default -> "";
+            };
+            nextCursor = encodeCursor(sortKey, value, last.getProd_id());
+        }
+        return new ProductPageDto(items, nextCursor, hasMore);
+    }
+
+    /**
+     * Newest active products first, the first page of the newest keyset listing.
+     */
+    public List<ProductCardDto> fetchNewArrivals(Integer limit) {
+        return fetchProductPage("newest", null, limit).getItems();
+    }
+
+    /**
+     * Most recently edited active products first.
+     */
+    public List<ProductCardDto> fetchRecentlyUpdated(Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<ProductCardDto> items = productRepository.findCardsByRecentlyUpdated("active", PageRequest.of(0, pageSize));
+        attachThumbnails(items);
+        return items;
+    }
 
-        return products;
+    private void attachThumbnails(List<ProductCardDto> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        Map<Integer, ProductCardDto> byId = new HashMap<>();
+        for (ProductCardDto item : items) {
+            byId.put(item.getProd_id(), item);
+        }
+        for (Object[] row : productRepository.findThumbnailsForProducts(byId.keySet())) {
+            ProductCardDto item = byId.get((Integer) row[0]);
+            if (item != null) {
+                item.setThumbnail((String) row[1]);
+            }
+        }
+    }
+
+    private static String encodeCursor(String sortKey, String value, int productId) {
+        String raw = sortKey + ":" + value + ":" + productId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Returns {sortValue, productId} or null for the first page
+    private static String[] decodeCursor(String sortKey, String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", -1);
+            if (parts.length != 3 || !parts[0].equals(sortKey)) {
+                throw new IllegalArgumentException("Cursor does not match sort " + sortKey);
+            }
+            Integer.parseInt(parts[2]);
+            return new String[]{parts[1], parts[2]};
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
     }
 
 
 
     public ResponseEntity<?> getGallery(){
         try {
-            List<Gallery> gallery = galleryRepository.findByActiveTrue();
+            List<Gallery> gallery = galleryCache.getActiveGallery();
             return ResponseEntity.ok(gallery);
         }
         catch (Exception e) {
@@ -0,0 +1,213 @@
+package com.spring.service;
+
+import com.spring.model.Product;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typeahead over product names, brands, categories and tags of the active catalog.
+ * Keys live in one sorted map, so a prefix is a seek plus a short scan of adjacent keys.
+ * Every word of a name is also a key, so "silk" finds "Red Silk Saree".
+ */
+@Component
+public class ProductSuggestIndex implements CatalogListener {
+
+    public static final String PRODUCT = "product";
+    public static final String BRAND = "brand";
+    public static final String CATEGORY = "category";
+    public static final String TAG = "tag";
+
+    private static final Comparator<Suggestion> RANKING = Comparator.comparingDouble(Suggestion::weight)
+            .thenComparingInt(Suggestion::count)
+            .thenComparing(Suggestion::text, Comparator.reverseOrder());
+
+    private final CatalogCache catalogCache;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // product id -> indexed copy, needed to take a product's contributions back out
+    private final Map<Integer, Product> indexed = new HashMap<>();
+    // "type:lowercased text" -> suggestion with the products behind it
+    private final Map<String, Entry> entries = new HashMap<>();
+    // lowercased text and each of its word suffixes -> suggestions found under that key
+    private final NavigableMap<String, Set<Entry>> keys = new TreeMap<>();
+
+    public ProductSuggestIndex(CatalogCache catalogCache) {
+        this.catalogCache = catalogCache;
+        catalogCache.addListener(this);
+    }
+
+    /**
+     * @param weight best rating among the products behind the suggestion
+     * @param count number of active products behind the suggestion
+     */
+    public record Suggestion(String text, String type, double weight, int count) {
+    }
+
+    private static final class Entry {
+        private final String text;
+        private final String type;
+        private final Map<Integer, Double> ratings = new HashMap<>();
+        private double weight;
+
+        Entry(String text, String type) {
+            this.text = text;
+            this.type = type;
+        }
+
+        Suggestion toSuggestion() {
+            return new Suggestion(text, type, weight, ratings.size());
+        }
+    }
+
+    /**
+     * Up to {@code limit} suggestions whose text, or a word in it, starts with the prefix, best rated first.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String normalized = prefix == null ? "" : prefix.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        // Touching the cache first reloads it (and so this index) when it has expired
+        catalogCache.getActiveProducts();
+        lock.readLock().lock();
+        try {
+            // Min-heap of the best `limit` suggestions seen so far
+            PriorityQueue<Suggestion> best = new PriorityQueue<>(limit + 1, RANKING);
+            Set<Entry> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Map.Entry<String, Set<Entry>> key : keys.tailMap(normalized, true).entrySet()) {
+                if (!key.getKey().startsWith(normalized)) {
+                    break;
+                }
+                for (Entry entry : key.getValue()) {
+                    if (seen.add(entry)) {
+                        best.add(entry.toSuggestion());
+                        if (best.size() > limit) {
+                            best.poll();
+                        }
+                    }
+                }
+            }
+            List<Suggestion> result = new ArrayList<>(best);
+            result.sort(RANKING.reversed());
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onReload(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            indexed.clear();
+            entries.clear();
+            keys.clear();
+            products.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Only the suggestions this product feeds are touched
+    @Override
+    public void onUpsert(Product product) {
+        lock.writeLock().lock();
+        try {
+            remove(product.getProd_id());
+            add(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onRemove(int productId) {
+        lock.writeLock().lock();
+        try {
+            remove(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(Product product) {
+        indexed.put(product.getProd_id(), product);
+        double rating = product.getRating() == null ? 0 : product.getRating();
+        contributions(product).forEach((type, display) -> {
+            Entry entry = entries.computeIfAbsent(entryKey(type, display), k -> register(new Entry(display, type)));
+            entry.ratings.put(product.getProd_id(), rating);
+            entry.weight = Math.max(entry.weight, rating);
+        });
+    }
+
+    private void remove(int productId) {
+        Product product = indexed.remove(productId);
+        if (product == null) {
+            return;
+        }
+        contributions(product).forEach((type, display) -> {
+            String entryKey = entryKey(type, display);
+            Entry entry = entries.get(entryKey);
+            if (entry == null) {
+                return;
+            }
+            Double rating = entry.ratings.remove(productId);
+            if (entry.ratings.isEmpty()) {
+                entries.remove(entryKey);
+                unregister(entry);
+            } else if (rating != null && rating >= entry.weight) {
+                // The best rated product left, the next best sets the weight
+                entry.weight = Collections.max(entry.ratings.values());
+            }
+        });
+    }
+
+    // type -> display text, for the fields that are set
+    private static Map<String, String> contributions(Product product) {
+        Map<String, String> texts = new LinkedHashMap<>();
+        putDisplay(texts, PRODUCT, product.getProd_name());
+        putDisplay(texts, BRAND, product.getProd_brand());
+        putDisplay(texts, CATEGORY, product.getProd_category());
+        putDisplay(texts, TAG, product.getProd_tag());
+        return texts;
+    }
+
+    private static void putDisplay(Map<String, String> texts, String type, String text) {
+        if (text != null && !text.isBlank()) {
+            texts.put(type, text.trim().replaceAll("\\s+", " "));
+        }
+    }
+
+    private static String entryKey(String type, String display) {
+        return type + ":" + display.toLowerCase(Locale.ROOT);
+    }
+
+    private Entry register(Entry entry) {
+        searchKeys(entry).forEach(key -> keys.computeIfAbsent(key, k -> new HashSet<>()).add(entry));
+        return entry;
+    }
+
+    private void unregister(Entry entry) {
+        for (String key : searchKeys(entry)) {
+            Set<Entry> found = keys.get(key);
+            if (found != null && found.remove(entry) && found.isEmpty()) {
+                keys.remove(key);
+            }
+        }
+    }
+
+    private static Set<String> searchKeys(Entry entry) {
+        String text = entry.text.toLowerCase(Locale.ROOT);
+        Set<String> searchKeys = new LinkedHashSet<>();
+        searchKeys.add(text);
+        for (int i = 1; i < text.length(); i++) {
+            if (text.charAt(i - 1) == ' ' && text.charAt(i) != ' ') {
+                searchKeys.add(text.substring(i));
+            }
+        }
+        return searchKeys;
+    }
+}
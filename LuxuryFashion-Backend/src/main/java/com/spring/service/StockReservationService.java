@@ -0,0 +1,169 @@
+package com.spring.service;
+
+import com.spring.model.StockReservation;
+import com.spring.repo.ProductRepository;
+import com.spring.repo.StockReservationRepository;
+import com.spring.repo.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Holds stock for buyers during checkout. Every step is one short transaction around a conditional
+ * UPDATE, so concurrent buyers of a hot product queue only for the length of that statement, and the
+ * quantity can never go below zero. Holds that are neither confirmed nor released expire after the TTL.
+ * Every hold belongs to a signed-in buyer, who may only keep a few live holds of a few units each, so no
+ * single client can sit on a product's whole stock.
+ */
+@Service
+public class StockReservationService {
+
+    private static final int SWEEP_CHUNK_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final StockReservationRepository reservationRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate writeTransaction;
+    private final long ttlMillis;
+    private final int maxQuantity;
+    private final int maxLiveHolds;
+
+    public StockReservationService(ProductRepository productRepository,
+                                   StockReservationRepository reservationRepository,
+                                   UserRepository userRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${stock.reservation.ttl-ms:600000}") long ttlMillis,
+                                   @Value("${stock.reservation.max-quantity:10}") int maxQuantity,
+                                   @Value("${stock.reservation.max-live-per-owner:10}") int maxLiveHolds) {
+        this.productRepository = productRepository;
+        this.reservationRepository = reservationRepository;
+        this.userRepository = userRepository;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.ttlMillis = ttlMillis;
+        this.maxQuantity = maxQuantity;
+        this.maxLiveHolds = maxLiveHolds;
+    }
+
+    /**
+     * @param owner email of the signed-in buyer
+     * @throws IllegalArgumentException for a missing owner, a bad quantity or an unknown product
+     * @throws IllegalStateException when not enough stock is left or the buyer holds too much already
+     */
+    public StockReservation reserve(int productId, int quantity, String owner) {
+        if (owner == null || owner.isBlank()) {
+            throw new IllegalArgumentException("Sign in to reserve stock");
+        }
+        if (quantity <= 0 || quantity > maxQuantity) {
+            throw new IllegalArgumentException("Quantity must be between 1 and " + maxQuantity);
+        }
+        return writeTransaction.execute(status -> {
+            // The buyer's account row serializes their own reserves, so parallel requests cannot all pass
+            // the count below before any of them has saved its hold; other buyers are not held up
+            if (userRepository.lockByEmail(owner).isEmpty()) {
+                throw new IllegalArgumentException("Sign in to reserve stock");
+            }
+            long now = System.currentTimeMillis();
+            if (reservationRepository.countLiveHolds(owner, now) >= maxLiveHolds) {
+                throw new IllegalStateException("Too many open reservations, confirm or release one first");
+            }
+            if (productRepository.takeStock(productId, quantity) == 0) {
+                if (productRepository.findQuantity(productId) == null) {
+                    throw new IllegalArgumentException("Product with ID " + productId + " not found");
+                }
+                throw new IllegalStateException("Not enough stock for product " + productId);
+            }
+            StockReservation reservation = new StockReservation();
+            reservation.setProductId(productId);
+            reservation.setQuantity(quantity);
+            reservation.setOwner(owner);
+            reservation.setStatus(StockReservation.RESERVED);
+            reservation.setCreatedAt(now);
+            reservation.setExpiresAt(now + ttlMillis);
+            return reservationRepository.save(reservation);
+        });
+    }
+
+    /**
+     * Turn a live hold into a sale; the stock stays taken.
+     * @throws IllegalStateException when the hold was already released, confirmed or has expired
+     */
+    public void confirm(Long reservationId, String owner) {
+        writeTransaction.executeWithoutResult(status -> {
+            ownedReservation(reservationId, owner);
+            if (reservationRepository.confirmIfLive(reservationId, System.currentTimeMillis()) == 0) {
+                throw new IllegalStateException("Reservation " + reservationId + " is no longer pending");
+            }
+        });
+    }
+
+    /**
+     * Give the held stock back. Releasing a hold that is no longer pending changes nothing.
+     * @return true if stock was returned
+     */
+    public boolean release(Long reservationId, String owner) {
+        return Boolean.TRUE.equals(writeTransaction.execute(status ->
+                returnIfPending(ownedReservation(reservationId, owner), StockReservation.RELEASED)));
+    }
+
+    public Integer availableQuantity(int productId) {
+        return productRepository.findQuantity(productId);
+    }
+
+    @Scheduled(fixedDelayString = "${stock.reservation.sweep-ms:30000}")
+    public void sweepExpired() {
+        try {
+            int expired = expireDue(System.currentTimeMillis());
+            if (expired > 0) {
+                System.out.println("Expired " + expired + " stock reservations");
+            }
+        } catch (Exception e) {
+            System.err.println("Stock reservation sweep failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Expire every pending hold whose TTL ended before {@code now}, one short transaction each.
+     * @return number of holds whose stock was returned
+     */
+    int expireDue(long now) {
+        int expired = 0;
+        while (true) {
+            List<Long> ids = reservationRepository.findExpiredIds(now, PageRequest.of(0, SWEEP_CHUNK_SIZE));
+            if (ids.isEmpty()) {
+                return expired;
+            }
+            for (Long id : ids) {
+                Boolean returned = writeTransaction.execute(status -> reservationRepository.findById(id)
+                        .map(reservation -> returnIfPending(reservation, StockReservation.EXPIRED))
+                        .orElse(false));
+                if (Boolean.TRUE.equals(returned)) {
+                    expired++;
+                }
+            }
+        }
+    }
+
+    private boolean returnIfPending(StockReservation reservation, String newStatus) {
+        // Only the caller that wins the status change returns the stock
+        if (reservationRepository.transition(reservation.getId(), StockReservation.RESERVED, newStatus) == 0) {
+            return false;
+        }
+        productRepository.returnStock(reservation.getProductId(), reservation.getQuantity());
+        return true;
+    }
+
+    private StockReservation ownedReservation(Long reservationId, String owner) {
+        StockReservation reservation = reservationRepository.findById(reservationId)
+                .orElseThrow(() -> new IllegalArgumentException("Reservation " + reservationId + " not found"));
+        // Only the buyer who placed a hold can settle it; ownerless legacy holds are left to expire
+        if (owner == null || !owner.equals(reservation.getOwner())) {
+            throw new IllegalArgumentException("Reservation " + reservationId + " not found");
+        }
+        return reservation;
+    }
+}
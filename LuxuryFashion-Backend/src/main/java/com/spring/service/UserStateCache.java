@@ -0,0 +1,74 @@
+package com.spring.service;
+
+import com.spring.model.User;
+import com.spring.repo.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Short-lived copies of user rows for the checks token claims cannot answer, such as tokens issued before
+ * the id and role were embedded. Entries expire after the TTL, so a role change is picked up without a restart.
+ */
+@Service
+public class UserStateCache {
+
+    public record UserState(Long id, String email, String role) {
+    }
+
+    private record Entry(UserState state, long loadedAt) {
+    }
+
+    private final UserRepository userRepository;
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    // Access ordered, so the eldest entry is the least recently used one
+    private final Map<String, Entry> entries;
+
+    public UserStateCache(UserRepository userRepository,
+                          @Value("${auth.user-cache.ttl-ms:60000}") long ttlMillis,
+                          @Value("${auth.user-cache.max-entries:10000}") int maxEntries) {
+        this.userRepository = userRepository;
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > UserStateCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return the user's current state, or null if no user has this email
+     */
+    public UserState get(String email) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(email);
+            if (entry != null && now - entry.loadedAt() < ttlMillis) {
+                return entry.state();
+            }
+        }
+
+        User user = userRepository.findByEmail(email);
+        if (user == null) {
+            evict(email);
+            return null;
+        }
+        UserState state = new UserState(user.getId(), user.getEmail(), user.getRole());
+        synchronized (entries) {
+            entries.put(email, new Entry(state, now));
+        }
+        return state;
+    }
+
+    public void evict(String email) {
+        synchronized (entries) {
+            entries.remove(email);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.spring.storage;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Stores objects under the SHA-256 of their content, so uploading the same bytes twice keeps one copy.
+ */
+@Component
+public class ContentAddressedStore {
+
+    private static final Pattern EXTENSION = Pattern.compile("\\.[a-z0-9]{1,5}");
+
+    private final ObjectStore objectStore;
+
+    public ContentAddressedStore(ObjectStore objectStore) {
+        this.objectStore = objectStore;
+    }
+
+    /**
+     * Content that can be read more than once: once to hash, once more to upload if it is new.
+     */
+    public interface ContentSource {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * @param created false when an object with the same content was already stored
+     */
+    public record Stored(String key, boolean created) {
+    }
+
+    /**
+     * @param prefix key prefix such as "photos/"
+     * @param extension file extension including the dot, anything unusual becomes {@code defaultExtension}
+     */
+    public Stored store(String prefix, String extension, String defaultExtension, String contentType,
+                        ContentSource content) throws IOException {
+        String hash;
+        try (InputStream in = content.open()) {
+            hash = sha256(in);
+        }
+        String key = prefix + hash + normalizeExtension(extension, defaultExtension);
+        if (objectStore.exists(key)) {
+            return new Stored(key, false);
+        }
+        try (InputStream in = content.open()) {
+            objectStore.putImmutable(key, in, contentType);
+        }
+        return new Stored(key, true);
+    }
+
+    static String sha256(InputStream in) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String normalizeExtension(String extension, String defaultExtension) {
+        if (extension == null) {
+            return defaultExtension;
+        }
+        String lower = extension.toLowerCase(Locale.ROOT);
+        return EXTENSION.matcher(lower).matches() ? lower : defaultExtension;
+    }
+}
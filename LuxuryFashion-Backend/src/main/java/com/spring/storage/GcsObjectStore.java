@@ -0,0 +1,118 @@
+package com.spring.storage;
+
+import com.google.cloud.BatchResult;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageBatch;
+import com.google.cloud.storage.StorageException;
+import com.google.cloud.storage.StorageOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Google Cloud Storage bucket with public-read objects. The client is built once and shared:
+ * it is thread-safe, and building it resolves credentials and sets up the HTTP transport.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "gcs", matchIfMissing = true)
+public class GcsObjectStore implements ObjectStore {
+
+    private static final String PUBLIC_HOST = "https://storage.googleapis.com/";
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+    // Requests per JSON API batch call
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final int NOT_FOUND = 404;
+
+    private final Storage storage;
+    private final String bucketName;
+    private final String urlPrefix;
+
+    public GcsObjectStore(@Value("${storage.gcs.bucket:productphotos1}") String bucketName) {
+        this.storage = StorageOptions.getDefaultInstance().getService();
+        this.bucketName = bucketName;
+        this.urlPrefix = PUBLIC_HOST + bucketName + "/";
+    }
+
+    @Override
+    public void put(String key, InputStream content, String contentType) throws IOException {
+        BlobInfo blobInfo = BlobInfo.newBuilder(bucketName, key)
+                .setContentType(contentType)
+                .build();
+        storage.createFrom(blobInfo, content);
+    }
+
+    // The bucket serves the object publicly and sends this Cache-Control with it
+    @Override
+    public void putImmutable(String key, InputStream content, String contentType) throws IOException {
+        BlobInfo blobInfo = BlobInfo.newBuilder(bucketName, key)
+                .setContentType(contentType)
+                .setCacheControl(IMMUTABLE_CACHE_CONTROL)
+                .build();
+        storage.createFrom(blobInfo, content);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        // Metadata lookup limited to the name, no content is transferred
+        return storage.get(BlobId.of(bucketName, key), Storage.BlobGetOption.fields(Storage.BlobField.NAME)) != null;
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Channels.newInputStream(storage.reader(BlobId.of(bucketName, key)));
+    }
+
+    @Override
+    public boolean delete(String key) {
+        return storage.delete(bucketName, key);
+    }
+
+    // storage.delete(List) reports a failure the same way as a missing object, as false, so the per-object
+    // outcome comes from batch callbacks instead
+    @Override
+    public Map<String, String> batchDelete(Collection<String> keys) {
+        Map<String, String> failed = new LinkedHashMap<>();
+        List<String> remaining = new ArrayList<>(keys);
+        for (int start = 0; start < remaining.size(); start += MAX_BATCH_SIZE) {
+            StorageBatch batch = storage.batch();
+            for (String key : remaining.subList(start, Math.min(remaining.size(), start + MAX_BATCH_SIZE))) {
+                batch.delete(BlobId.of(bucketName, key)).notify(new BatchResult.Callback<>() {
+                    @Override
+                    public void success(Boolean deleted) {
+                        // false: the object was already gone
+                    }
+
+                    @Override
+                    public void error(StorageException e) {
+                        if (e.getCode() != NOT_FOUND) {
+                            failed.put(key, String.valueOf(e.getMessage()));
+                        }
+                    }
+                });
+            }
+            batch.submit();
+        }
+        return failed;
+    }
+
+    @Override
+    public String url(String key) {
+        return urlPrefix + key;
+    }
+
+    @Override
+    public String keyFromUrl(String url) {
+        return url != null && url.startsWith(urlPrefix) ? url.substring(urlPrefix.length()) : null;
+    }
+}
@@ -0,0 +1,102 @@
+package com.spring.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Objects as files under product.picture.path, served back by {@link com.spring.controller.MediaController}.
+ * Meant for development and tests, where no bucket or credentials are available.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+public class LocalObjectStore implements ObjectStore {
+
+    private final Path root;
+    private final String urlPrefix;
+
+    public LocalObjectStore(@Value("${product.picture.path}") String rootPath,
+                            @Value("${storage.local.public-url:/media}") String publicUrl) {
+        this.root = Paths.get(rootPath).toAbsolutePath().normalize();
+        this.urlPrefix = publicUrl.endsWith("/") ? publicUrl : publicUrl + "/";
+    }
+
+    @Override
+    public void put(String key, InputStream content, String contentType) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        // Written next to the target and moved into place, so readers never see a half-written file
+        Path temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+        try {
+            Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.isRegularFile(resolve(key));
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public boolean delete(String key) {
+        try {
+            return Files.deleteIfExists(resolve(key));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Map<String, String> batchDelete(Collection<String> keys) {
+        Map<String, String> failed = new LinkedHashMap<>();
+        for (String key : keys) {
+            try {
+                delete(key);
+            } catch (RuntimeException e) {
+                failed.put(key, String.valueOf(e.getMessage()));
+            }
+        }
+        return failed;
+    }
+
+    @Override
+    public String url(String key) {
+        return urlPrefix + key;
+    }
+
+    @Override
+    public String keyFromUrl(String url) {
+        return url != null && url.startsWith(urlPrefix) ? url.substring(urlPrefix.length()) : null;
+    }
+
+    /**
+     * File for the key.
+     * @throws IllegalArgumentException when the key would escape the root directory
+     */
+    public Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new IllegalArgumentException("Invalid object key: " + key);
+        }
+        return path;
+    }
+}
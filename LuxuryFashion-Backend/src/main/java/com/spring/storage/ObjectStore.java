@@ -0,0 +1,54 @@
+package com.spring.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Where product and gallery media live. Keys are relative paths such as "photos/dress_0_1700000000000.jpg";
+ * the backend decides how a key maps to a public URL.
+ */
+public interface ObjectStore {
+
+    /**
+     * Store the content under the key, replacing any object already there.
+     */
+    void put(String key, InputStream content, String contentType) throws IOException;
+
+    /**
+     * Store content that will never change under this key, so clients may cache it indefinitely.
+     */
+    default void putImmutable(String key, InputStream content, String contentType) throws IOException {
+        put(key, content, contentType);
+    }
+
+    boolean exists(String key);
+
+    /**
+     * Read the object back; the caller closes the stream.
+     */
+    InputStream open(String key) throws IOException;
+
+    /**
+     * @return true if an object was deleted
+     */
+    boolean delete(String key);
+
+    /**
+     * Delete many objects in as few round trips as the backend allows. A missing key counts as deleted.
+     * @return the keys that could not be deleted, each with its error; empty when all are gone
+     */
+    Map<String, String> batchDelete(Collection<String> keys);
+
+    /**
+     * Public URL the shop can load the object from.
+     */
+    String url(String key);
+
+    /**
+     * Inverse of {@link #url(String)}.
+     * @return the key, or null when the URL does not point into this store
+     */
+    String keyFromUrl(String url);
+}
@@ -0,0 +1,77 @@
+package com.spring.jwt;
+
+import com.spring.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of authenticating a JWT cookie, before and after the single-verify path.
+ * Not picked up by surefire; run it from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.spring.jwt.JwtVerifyBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerifyBenchmark {
+
+    private static final String SECRET = "benchmark-secret-that-is-at-least-256-bits-long";
+
+    private JwtUtil cachedUtil;
+    private JwtUtil uncachedUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachedUtil = new JwtUtil(SECRET, TimeUnit.HOURS.toMillis(1), 10_000);
+        uncachedUtil = new JwtUtil(SECRET, TimeUnit.HOURS.toMillis(1), 0);
+        User user = new User();
+        user.setId(42L);
+        user.setEmail("shopper@example.com");
+        user.setRole("ROLE_USER");
+        token = cachedUtil.generateToken(user);
+    }
+
+    // The old filter path: extractUsername, then validateToken, which parsed twice more, each with a new key and parser
+    @Benchmark
+    public String threeParses() {
+        String username = legacyParse(token).getSubject();
+        legacyParse(token);
+        if (legacyParse(token).getExpiration().before(new Date())) {
+            throw new IllegalStateException("expired");
+        }
+        return username;
+    }
+
+    @Benchmark
+    public String verifyOnce() {
+        return uncachedUtil.verify(token).getSubject();
+    }
+
+    @Benchmark
+    public String verifyCached() {
+        return cachedUtil.verify(token).getSubject();
+    }
+
+    private static Claims legacyParse(String token) {
+        return Jwts.parser()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtVerifyBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,114 @@
+package com.spring.repo;
+
+import com.spring.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Seeds 100k products into a scratch MySQL database and checks with EXPLAIN that the filtered catalog
+ * queries are served by the composite indexes, then times them.
+ * Point CATALOG_BENCH_DB_URL at an empty schema: tables are created and dropped by the test.
+ */
+@EnabledIfEnvironmentVariable(named = "CATALOG_BENCH_DB_URL", matches = ".+")
+@DataJpaTest(properties = {
+        "spring.datasource.url=${CATALOG_BENCH_DB_URL}",
+        "spring.datasource.username=${CATALOG_BENCH_DB_USERNAME:root}",
+        "spring.datasource.password=${CATALOG_BENCH_DB_PASSWORD:}",
+        "spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = ProductIndexBenchmarkTest.JpaConfig.class)
+class ProductIndexBenchmarkTest {
+
+    private static final int CATALOG_SIZE = 100_000;
+    private static final int CATEGORIES = 50;
+    private static final int TAGS = 200;
+    private static final Set<String> INDEX_ACCESS = Set.of("ref", "range");
+
+    @SpringBootConfiguration
+    @EntityScan("com.spring.model")
+    @EnableJpaRepositories("com.spring.repo")
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void seedCatalog() {
+        String sql = "INSERT INTO product (prod_name, prod_status, prod_category, prod_category_key, prod_tag, prod_tag_key, "
+                + "prod_brand, prod_brand_key, prod_gender, prod_price, prod_quantity, selling_price, created_ts) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            String category = "Category" + (i % CATEGORIES);
+            String tag = "Tag" + (i % TAGS);
+            String brand = "Brand" + (i % 100);
+            batch.add(new Object[]{"Product " + i, i % 10 == 0 ? "inactive" : "active",
+                    category, Product.normalizeKey(category), tag, Product.normalizeKey(tag),
+                    brand, Product.normalizeKey(brand), i % 2 == 0 ? "women" : "men", 500 + i % 5000, 10, 600 + i % 5000,
+                    1_700_000_000_000L + i});
+            if (batch.size() == 5_000) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        jdbcTemplate.batchUpdate(sql, batch);
+        jdbcTemplate.execute("ANALYZE TABLE product");
+    }
+
+    @Test
+    void filteredCatalogQueriesUseCompositeIndexes() {
+        assertIndexAccess("SELECT * FROM product WHERE prod_status = 'active' AND prod_category_key = 'category7'",
+                "idx_product_status_category");
+        assertIndexAccess("SELECT * FROM product WHERE prod_status = 'active' AND prod_tag_key = 'tag42'",
+                "idx_product_status_tag");
+        assertIndexAccess("SELECT * FROM product WHERE prod_status = 'active' AND prod_brand_key = 'brand3'",
+                "idx_product_status_brand");
+        assertIndexAccess("SELECT * FROM product WHERE prod_status = 'active' AND prod_price BETWEEN 1000 AND 1100",
+                "idx_product_status_price");
+
+        long started = System.nanoTime();
+        int categoryRows = productRepository.findByCategoryAndStatus("Category7", "active").size();
+        long categoryMicros = (System.nanoTime() - started) / 1_000;
+
+        started = System.nanoTime();
+        int tagRows = productRepository.findByTagAndStatus("TAG42", "active").size();
+        long tagMicros = (System.nanoTime() - started) / 1_000;
+
+        // Every tenth row is inactive, none of them falls in category 7 or tag 42
+        assertEquals(CATALOG_SIZE / CATEGORIES, categoryRows);
+        assertEquals(CATALOG_SIZE / TAGS, tagRows);
+        System.out.printf("findByCategoryAndStatus: %d rows in %d us%n", categoryRows, categoryMicros);
+        System.out.printf("findByTagAndStatus: %d rows in %d us%n", tagRows, tagMicros);
+    }
+
+    private void assertIndexAccess(String query, String expectedIndex) {
+        Map<String, Object> plan = jdbcTemplate.queryForList("EXPLAIN " + query).get(0);
+        System.out.println(plan);
+        assertEquals(expectedIndex, plan.get("key"), query);
+        assertTrue(INDEX_ACCESS.contains(String.valueOf(plan.get("type"))), query);
+    }
+}
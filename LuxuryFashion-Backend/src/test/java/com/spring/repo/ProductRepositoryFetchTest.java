@@ -0,0 +1,97 @@
+package com.spring.repo;
+
+import com.spring.model.Product;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ContextConfiguration(classes = ProductRepositoryFetchTest.JpaConfig.class)
+class ProductRepositoryFetchTest {
+
+    private static final int CATALOG_SIZE = 500;
+
+    @SpringBootConfiguration
+    @EntityScan("com.spring.model")
+    @EnableJpaRepositories("com.spring.repo")
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void activeListingLoadsProductsAndImagesInConstantStatements() {
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            Product product = new Product();
+            product.setProd_name("Product " + i);
+            product.setProdStatus("active");
+            product.setImagenames(new ArrayList<>(List.of("front_" + i + ".jpg", "back_" + i + ".jpg")));
+            product.setProd_images(new ArrayList<>(List.of("front_" + i + ".jpg", "back_" + i + ".jpg")));
+            product.setProd_image_srcset(new ArrayList<>(List.of("front_" + i + "_w320.jpg 320w, front_" + i + ".jpg 800w")));
+            entityManager.persist(product);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Product> products = productRepository.findByProdStatus("active");
+        int images = 0;
+        for (Product product : products) {
+            images += product.getImagenames().size() + product.getProd_images().size()
+                    + product.getProd_image_srcset().size();
+        }
+
+        assertEquals(CATALOG_SIZE, products.size());
+        assertEquals(CATALOG_SIZE * 5, images);
+        // One select for the products plus one per image collection, independent of catalog size
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void thumbnailIsAlwaysTheFirstImage() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Product product = new Product();
+            product.setProd_name("Product " + i);
+            product.setProdStatus("active");
+            product.setProd_images(new ArrayList<>(List.of("front_" + i + ".jpg", "side_" + i + ".jpg", "back_" + i + ".jpg")));
+            entityManager.persist(product);
+            ids.add(product.getProd_id());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Object[]> thumbnails = productRepository.findThumbnailsForProducts(ids);
+
+        assertEquals(ids.size(), thumbnails.size());
+        for (Object[] row : thumbnails) {
+            Product product = productRepository.findById(((Integer) row[0]).longValue()).orElseThrow();
+            assertEquals(product.getProd_images().get(0), row[1]);
+            assertTrue(((String) row[1]).startsWith("front_"));
+        }
+    }
+}
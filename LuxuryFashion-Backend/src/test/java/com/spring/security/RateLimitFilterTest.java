@@ -0,0 +1,116 @@
+package com.spring.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 20;
+
+    @Test
+    void concurrentTakesNeverExceedCapacity() throws Exception {
+        // Refills one token every 72 seconds, so nothing comes back while the test runs
+        RateLimitFilter filter = newFilter("50/1h", "");
+        RateLimitFilter.Limit limit = RateLimitFilter.Limit.parse("50/1h");
+        AtomicInteger allowed = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    if (filter.tryTake("/auth/login|ip|203.0.113.7", limit)) {
+                        allowed.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(50, allowed.get());
+    }
+
+    @Test
+    void accountLimitAppliesAcrossAddressesAndBodyStillReachesController() throws Exception {
+        RateLimitFilter filter = newFilter("", "2/1h");
+
+        assertEquals(200, login(filter, "198.51.100.1", "Shopper@Example.com").getStatus());
+        assertEquals(200, login(filter, "198.51.100.2", "shopper@example.com").getStatus());
+        MockHttpServletResponse third = login(filter, "198.51.100.3", "shopper@example.com");
+        assertEquals(429, third.getStatus());
+        assertNotNull(third.getHeader("Retry-After"));
+
+        // Another account is unaffected, and the controller sees the body the filter read
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(loginRequest("198.51.100.1", "other@example.com"), new MockHttpServletResponse(), chain);
+        String forwarded = new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(forwarded.contains("other@example.com"));
+    }
+
+    @Test
+    void oneAddressCannotOpenUnlimitedAccountBuckets() throws Exception {
+        RateLimitFilter filter = newFilter("", "5/1h", "2/1h", 1000);
+
+        assertEquals(200, login(filter, "198.51.100.1", "a@example.com").getStatus());
+        assertEquals(200, login(filter, "198.51.100.1", "b@example.com").getStatus());
+        assertEquals(429, login(filter, "198.51.100.1", "c@example.com").getStatus());
+        // Accounts that already have a bucket cost nothing extra, and other addresses have their own budget
+        assertEquals(200, login(filter, "198.51.100.1", "a@example.com").getStatus());
+        assertEquals(200, login(filter, "198.51.100.2", "c@example.com").getStatus());
+    }
+
+    @Test
+    void fullMapTurnsAwayOnlyNewClients() {
+        RateLimitFilter filter = newFilter("50/1h", "", "", 2);
+        RateLimitFilter.Limit limit = RateLimitFilter.Limit.parse("50/1h");
+
+        assertTrue(filter.tryTake("/auth/login|ip|198.51.100.1", limit));
+        assertTrue(filter.tryTake("/auth/login|ip|198.51.100.2", limit));
+        // No shared overflow bucket an attacker could drain: each newcomer is refused on its own
+        assertFalse(filter.tryTake("/auth/login|ip|198.51.100.3", limit));
+        assertTrue(filter.tryTake("/auth/login|ip|198.51.100.1", limit));
+    }
+
+    private static RateLimitFilter newFilter(String perIp, String perAccount) {
+        return newFilter(perIp, perAccount, "", 1000);
+    }
+
+    private static RateLimitFilter newFilter(String perIp, String perAccount, String newAccountsPerIp, int maxBuckets) {
+        return new RateLimitFilter(new ObjectMapper(), perIp, perAccount, "", "", newAccountsPerIp, false,
+                maxBuckets, 600_000);
+    }
+
+    private static MockHttpServletResponse login(RateLimitFilter filter, String ip, String email) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(loginRequest(ip, email), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest loginRequest(String ip, String email) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/login");
+        request.setServletPath("/auth/login");
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(("{\"email\":\"" + email + "\",\"password\":\"secret\"}").getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
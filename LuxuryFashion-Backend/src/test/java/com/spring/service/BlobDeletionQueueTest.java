@@ -0,0 +1,120 @@
+package com.spring.service;
+
+import com.spring.model.PendingBlobDeletion;
+import com.spring.repo.BlobRefRepository;
+import com.spring.repo.PendingBlobDeletionRepository;
+import com.spring.storage.ObjectStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.InputStream;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@ContextConfiguration(classes = BlobDeletionQueueTest.JpaConfig.class)
+class BlobDeletionQueueTest {
+
+    private static final long BASE_BACKOFF_MS = 1000;
+
+    @SpringBootConfiguration
+    @EntityScan("com.spring.model")
+    @EnableJpaRepositories("com.spring.repo")
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private PendingBlobDeletionRepository pendingRepository;
+
+    @Autowired
+    private BlobRefRepository blobRefRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void failedDeletesStayQueuedAndAreRetriedWithBackoff() {
+        FailingStore store = new FailingStore();
+        store.failing.add("photos/b.jpg");
+        BlobDeletionQueue queue = new BlobDeletionQueue(pendingRepository, blobRefRepository, store,
+                transactionManager, 100, BASE_BACKOFF_MS, 60_000);
+        queue.enqueue(List.of("photos/a.jpg", "photos/b.jpg", "photos/c.jpg"));
+        long now = System.currentTimeMillis();
+
+        assertEquals(2, queue.drainDue(now));
+        List<PendingBlobDeletion> left = pendingRepository.findAll();
+        assertEquals(1, left.size());
+        assertEquals("photos/b.jpg", left.get(0).getObjectKey());
+        assertEquals(1, left.get(0).getAttempts());
+        assertEquals(now + BASE_BACKOFF_MS, left.get(0).getNextAttemptAt());
+        assertEquals("503 Service Unavailable", left.get(0).getLastError());
+
+        // Not due again before its backoff has passed
+        assertEquals(0, queue.drainDue(now));
+
+        store.failing.clear();
+        assertEquals(1, queue.drainDue(now + BASE_BACKOFF_MS));
+        assertTrue(pendingRepository.findAll().isEmpty());
+        assertEquals(List.of("photos/a.jpg", "photos/c.jpg", "photos/b.jpg"), store.deleted);
+    }
+
+    // Deletes everything except the keys in failing, which report a storage error
+    private static final class FailingStore implements ObjectStore {
+
+        final Set<String> failing = new HashSet<>();
+        final List<String> deleted = new ArrayList<>();
+
+        @Override
+        public Map<String, String> batchDelete(Collection<String> keys) {
+            Map<String, String> failed = new LinkedHashMap<>();
+            for (String key : keys) {
+                if (failing.contains(key)) {
+                    failed.put(key, "503 Service Unavailable");
+                } else {
+                    deleted.add(key);
+                }
+            }
+            return failed;
+        }
+
+        @Override
+        public void put(String key, InputStream content, String contentType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean exists(String key) {
+            return false;
+        }
+
+        @Override
+        public InputStream open(String key) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean delete(String key) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String url(String key) {
+            return "/media/" + key;
+        }
+
+        @Override
+        public String keyFromUrl(String url) {
+            return url.startsWith("/media/") ? url.substring(7) : null;
+        }
+    }
+}
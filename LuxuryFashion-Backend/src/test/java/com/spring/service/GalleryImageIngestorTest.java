@@ -0,0 +1,53 @@
+package com.spring.service;
+
+import com.spring.storage.ContentAddressedStore;
+import com.spring.storage.LocalObjectStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GalleryImageIngestorTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void wrappedBase64IsStoredAsItsBytes() throws Exception {
+        LocalObjectStore store = new LocalObjectStore(root.toString(), "/media");
+        GalleryImageIngestor ingestor = new GalleryImageIngestor(new ContentAddressedStore(store), store, 1024);
+        byte[] image = new byte[300];
+        for (int i = 0; i < image.length; i++) {
+            image[i] = (byte) i;
+        }
+
+        // Wrapped at 76 columns, as MIME encoders produce it
+        String base64 = Base64.getMimeEncoder(76, "\r\n".getBytes()).encodeToString(image);
+        String url = ingestor.ingest("data:image/png;base64," + base64);
+
+        assertTrue(url.startsWith("/media/gallery/") && url.endsWith(".png"), url);
+        assertArrayEquals(image, Files.readAllBytes(store.resolve(store.keyFromUrl(url))));
+    }
+
+    @Test
+    void invalidCharactersAreRejected() {
+        LocalObjectStore store = new LocalObjectStore(root.toString(), "/media");
+        GalleryImageIngestor ingestor = new GalleryImageIngestor(new ContentAddressedStore(store), store, 1024);
+
+        assertThrows(IllegalArgumentException.class, () -> ingestor.ingest("data:image/png;base64,iVBO!!Rw0K#GgoAAAA"));
+        assertThrows(IllegalArgumentException.class, () -> ingestor.ingest("data:image/png;base64,iVBORw0KGgo\u00e9AAAA"));
+    }
+
+    @Test
+    void oversizedImagesAreRejectedBeforeDecoding() {
+        LocalObjectStore store = new LocalObjectStore(root.toString(), "/media");
+        GalleryImageIngestor ingestor = new GalleryImageIngestor(new ContentAddressedStore(store), store, 1024);
+
+        String tooLarge = "data:image/png;base64," + Base64.getEncoder().encodeToString(new byte[2048]);
+        assertThrows(IllegalArgumentException.class, () -> ingestor.ingest(tooLarge));
+    }
+}
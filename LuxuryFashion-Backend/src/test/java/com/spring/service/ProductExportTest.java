@@ -0,0 +1,83 @@
+package com.spring.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.model.Product;
+import com.spring.repo.ProductRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The test transaction stays open around the export, like the request's EntityManager under open-in-view
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@ContextConfiguration(classes = ProductExportTest.JpaConfig.class)
+class ProductExportTest {
+
+    private static final int CATALOG_SIZE = AdminPageServiceImpl.EXPORT_CHUNK_SIZE * 2 + 50;
+
+    @SpringBootConfiguration
+    @EntityScan("com.spring.model")
+    @EnableJpaRepositories("com.spring.repo")
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void exportHoldsAtMostOneChunkInThePersistenceContext() throws Exception {
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            Product product = new Product();
+            product.setProd_name("Product " + i);
+            product.setProdStatus("active");
+            product.setProd_images(new ArrayList<>(List.of("front_" + i + ".jpg")));
+            entityManager.persist(product);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        AdminPageServiceImpl adminService = new AdminPageServiceImpl(productRepository, null, null, null,
+                new ObjectMapper(), null, null, null, null, null, null, entityManager, transactionManager);
+        Session session = entityManager.unwrap(Session.class);
+        List<Integer> managedAtFlush = new ArrayList<>();
+        // The export flushes once per chunk, while that chunk's products are still loaded
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                managedAtFlush.add(session.getStatistics().getEntityCount());
+            }
+        };
+
+        adminService.exportProducts(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).trim().split("\n");
+        assertEquals(CATALOG_SIZE, lines.length);
+        assertTrue(managedAtFlush.size() >= 3, "expected a flush per chunk, got " + managedAtFlush);
+        for (int managed : managedAtFlush) {
+            assertTrue(managed <= AdminPageServiceImpl.EXPORT_CHUNK_SIZE, "persistence context grew: " + managedAtFlush);
+        }
+        assertEquals(0, session.getStatistics().getEntityCount());
+    }
+}
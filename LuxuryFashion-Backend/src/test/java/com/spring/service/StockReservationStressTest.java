@@ -0,0 +1,188 @@
+package com.spring.service;
+
+import com.spring.model.Product;
+import com.spring.model.StockReservation;
+import com.spring.model.User;
+import com.spring.repo.ProductRepository;
+import com.spring.repo.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Each reservation commits on its own, so the test must not wrap them in one rolled-back transaction
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stock;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=20",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        // USER is a keyword in H2, and reserves lock the buyer's row in the user table
+        "spring.jpa.properties.hibernate.auto_quote_keyword=true",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ContextConfiguration(classes = StockReservationStressTest.JpaConfig.class)
+class StockReservationStressTest {
+
+    private static final int STOCK = 50;
+    private static final int BUYERS = 32;
+    // At most the default number of live holds per buyer, so only stock runs out
+    private static final int ATTEMPTS_PER_BUYER = 10;
+    private static final String BUYER = "buyer@example.com";
+
+    @SpringBootConfiguration
+    @EntityScan("com.spring.model")
+    @EnableJpaRepositories("com.spring.repo")
+    @Import(StockReservationService.class)
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void concurrentReservationsOnOneProductNeverOversell() throws Exception {
+        int productId = newProduct(STOCK);
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        List<Long> reservationIds = new CopyOnWriteArrayList<>();
+
+        ExecutorService pool = Executors.newFixedThreadPool(BUYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> buyers = new ArrayList<>();
+        for (int b = 0; b < BUYERS; b++) {
+            String owner = newBuyer("buyer" + b + "@example.com");
+            buyers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_BUYER; i++) {
+                    try {
+                        reservationIds.add(stockReservationService.reserve(productId, 1, owner).getId());
+                        reserved.incrementAndGet();
+                    } catch (IllegalStateException e) {
+                        refused.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> buyer : buyers) {
+            buyer.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(STOCK, reserved.get());
+        assertEquals(BUYERS * ATTEMPTS_PER_BUYER - STOCK, refused.get());
+        assertEquals(0, stockReservationService.availableQuantity(productId));
+        assertEquals(STOCK, reservationIds.size());
+    }
+
+    @Test
+    void parallelReservesFromOneBuyerStopAtTheLiveHoldCap() throws Exception {
+        int productId = newProduct(STOCK);
+        String owner = newBuyer("eager@example.com");
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(BUYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> requests = new ArrayList<>();
+        for (int r = 0; r < BUYERS; r++) {
+            requests.add(pool.submit(() -> {
+                start.await();
+                try {
+                    stockReservationService.reserve(productId, 1, owner);
+                    reserved.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    refused.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> request : requests) {
+            request.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        // The default cap of 10 live holds, however many requests race for it
+        assertEquals(10, reserved.get());
+        assertEquals(BUYERS - 10, refused.get());
+        assertEquals(STOCK - 10, stockReservationService.availableQuantity(productId));
+    }
+
+    @Test
+    void releasedAndExpiredHoldsReturnStockOnce() {
+        newBuyer(BUYER);
+        int productId = newProduct(5);
+        StockReservation confirmed = stockReservationService.reserve(productId, 2, BUYER);
+        StockReservation released = stockReservationService.reserve(productId, 1, BUYER);
+        stockReservationService.reserve(productId, 2, BUYER);
+        assertEquals(0, stockReservationService.availableQuantity(productId));
+
+        stockReservationService.confirm(confirmed.getId(), BUYER);
+        assertTrue(stockReservationService.release(released.getId(), BUYER));
+        assertFalse(stockReservationService.release(released.getId(), BUYER));
+        assertEquals(1, stockReservationService.availableQuantity(productId));
+
+        // Only the remaining pending hold expires; the confirmed one keeps its stock
+        assertEquals(1, stockReservationService.expireDue(Long.MAX_VALUE));
+        assertEquals(3, stockReservationService.availableQuantity(productId));
+        assertThrows(IllegalStateException.class, () -> stockReservationService.confirm(released.getId(), BUYER));
+    }
+
+    @Test
+    void holdsCanOnlyBeSettledByTheirOwner() {
+        newBuyer(BUYER);
+        int productId = newProduct(5);
+        StockReservation hold = stockReservationService.reserve(productId, 1, BUYER);
+
+        assertThrows(IllegalArgumentException.class, () -> stockReservationService.reserve(productId, 1, null));
+        assertThrows(IllegalArgumentException.class, () -> stockReservationService.release(hold.getId(), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> stockReservationService.confirm(hold.getId(), "someone-else@example.com"));
+        assertEquals(4, stockReservationService.availableQuantity(productId));
+    }
+
+    private String newBuyer(String email) {
+        if (!Boolean.TRUE.equals(userRepository.existsByEmail(email))) {
+            User user = new User();
+            user.setEmail(email);
+            user.setPassword("not-a-real-hash");
+            userRepository.save(user);
+        }
+        return email;
+    }
+
+    private int newProduct(int quantity) {
+        Product product = new Product();
+        product.setProd_name("Limited drop");
+        product.setProdStatus("active");
+        product.setProd_quantity(quantity);
+        return productRepository.save(product).getProd_id();
+    }
+}
@@ -0,0 +1,41 @@
+package com.spring.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalObjectStoreTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void putUrlAndDeleteRoundTrip() throws Exception {
+        LocalObjectStore store = new LocalObjectStore(root.toString(), "/media");
+        store.put("photos/a.jpg", new ByteArrayInputStream("a".getBytes(StandardCharsets.UTF_8)), "image/jpeg");
+        store.put("photos/b.jpg", new ByteArrayInputStream("b".getBytes(StandardCharsets.UTF_8)), "image/jpeg");
+
+        assertEquals("a", Files.readString(root.resolve("photos/a.jpg")));
+        assertEquals("/media/photos/a.jpg", store.url("photos/a.jpg"));
+        assertEquals("photos/a.jpg", store.keyFromUrl(store.url("photos/a.jpg")));
+        assertNull(store.keyFromUrl("https://storage.googleapis.com/productphotos1/photos/a.jpg"));
+
+        // A missing key is not a failure
+        assertTrue(store.batchDelete(List.of("photos/a.jpg", "photos/b.jpg", "photos/missing.jpg")).isEmpty());
+        assertFalse(Files.exists(root.resolve("photos/a.jpg")));
+    }
+
+    @Test
+    void keysCannotEscapeTheRoot() {
+        LocalObjectStore store = new LocalObjectStore(root.toString(), "/media");
+        assertThrows(IllegalArgumentException.class, () -> store.resolve("../outside.jpg"));
+        assertThrows(IllegalArgumentException.class, () -> store.resolve("/etc/passwd"));
+    }
+}